@@ -0,0 +1,76 @@
+package com.brainking.tools.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import com.brainking.tools.dto.Game;
+import com.brainking.tools.services.ImportService;
+import com.brainking.tools.utils.Constants;
+
+final class BenchmarkGames {
+
+    // the bundled sample game, every other name is a variant for a synthetic game
+    static final String SAMPLE = "8672028";
+    static final String CHESS = "Chess";
+
+    private BenchmarkGames() {
+    }
+
+    static File writePgn(final String name, final int moves) throws IOException {
+        final File file = File.createTempFile("benchmark", ".pgn");
+        file.deleteOnExit();
+        Files.writeString(file.toPath(), getPgn(name, moves));
+        return file;
+    }
+
+    static Game importGame(final String name, final int moves) throws IOException {
+        final File file = writePgn(name, moves);
+        final Game game = new ImportService().importPgn(file);
+        Files.delete(file.toPath());
+        return game;
+    }
+
+    private static String getPgn(final String name, final int moves) throws IOException {
+        final String pgn;
+        if (SAMPLE.equals(name)) {
+            try (InputStream inputStream = BenchmarkGames.class.getResourceAsStream("/pgn/" + SAMPLE + ".pgn")) {
+                pgn = new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+            }
+        } else {
+            pgn = getSyntheticPgn(name, moves);
+        }
+        return pgn;
+    }
+
+    private static String getSyntheticPgn(final String variant, final int moves) {
+        // knights jumping back and forth, legal in every variant used by the benchmarks
+        final StringBuilder builder = new StringBuilder();
+        builder.append("[Event \"Benchmark\"]\n[Site \"BrainKing.com\"]\n[Date \"2021.04.19\"]\n")
+                .append("[White \"White\"]\n[Black \"Black\"]\n[Result \"1/2-1/2\"]\n");
+        if (!CHESS.equals(variant)) {
+            builder.append("[Variant \"").append(variant).append("\"]\n");
+        }
+        if (Constants.EMBASSY.equals(variant)) {
+            builder.append("[FEN \"rnbqkmcbnr/pppppppppp/10/10/10/10/PPPPPPPPPP/RNBQKMCBNR w KQkq - 0 1\"]\n");
+        }
+        builder.append('\n');
+        final String[] shuffle = getKnightShuffle(variant);
+        for (int i = 0; i < moves; i++) {
+            final int index = i % 2 * 2;
+            builder.append(i + 1).append(". ").append(shuffle[index]).append(' ').append(shuffle[index + 1]).append('\n');
+        }
+        return builder.append("1/2-1/2\n").toString();
+    }
+
+    private static String[] getKnightShuffle(final String variant) {
+        return switch (variant) {
+            case Constants.GRAND -> new String[] {"Nc4", "Nc7", "Nb2", "Nb9"};
+            case Constants.EMBASSY -> new String[] {"Nc3", "Nc6", "Nb1", "Nb8"};
+            default -> new String[] {"Nf3", "Nf6", "Ng1", "Ng8"};
+        };
+    }
+
+}
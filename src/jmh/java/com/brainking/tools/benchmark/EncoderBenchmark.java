@@ -0,0 +1,71 @@
+package com.brainking.tools.benchmark;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.jcodec.api.awt.AWTSequenceEncoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.brainking.tools.dto.Game;
+import com.brainking.tools.services.RenderService;
+import com.brainking.tools.services.SvgService;
+import com.brainking.tools.utils.Constants;
+import com.brainking.tools.video.FramePool;
+import com.brainking.tools.video.JcodecVideoSink;
+import com.brainking.tools.video.VideoSink;
+
+// jcodec encoding of a rendered 1080x1080 frame
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class EncoderBenchmark {
+
+    private File videoFile;
+    private VideoSink videoSink;
+    private BufferedImage frame;
+
+    @Setup
+    public void setUp() throws IOException {
+        final RenderService renderService = new RenderService(new SvgService(64, "", 4), new FramePool(16), 32);
+        final Game game = BenchmarkGames.importGame(BenchmarkGames.SAMPLE, 0);
+        final int squareSize = Constants.getSquareSize(game);
+        game.addPieceMaps(renderService.getBufferedImageMap("White", squareSize),
+                renderService.getBufferedImageMap("Black", squareSize));
+        final GameReplay replay = new GameReplay(game);
+        for (int i = 0; i < Constants.MOVE_STEPS * 4; i++) {
+            replay.nextFrame();
+        }
+        frame = renderService.getRenderedImage(game, replay.getPosition(), replay.getProcessedMoves());
+        videoFile = File.createTempFile("benchmark", ".mov");
+        // the same sink as the video generation, a pool of size 0 never hands the frame to the renderer again
+        videoSink = new JcodecVideoSink(AWTSequenceEncoder.createSequenceEncoder(videoFile, 25));
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        videoSink.finish();
+        Files.delete(videoFile.toPath());
+    }
+
+    @Benchmark
+    public void encodeFrame() throws IOException {
+        videoSink.encodeImage(frame);
+    }
+
+}
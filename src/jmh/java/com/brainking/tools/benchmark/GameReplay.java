@@ -0,0 +1,67 @@
+package com.brainking.tools.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.brainking.tools.dto.Game;
+import com.brainking.tools.dto.Move;
+import com.brainking.tools.dto.Position;
+import com.brainking.tools.services.PositionService;
+
+final class GameReplay {
+
+    private final Game game;
+    private final List<Move> moves = new ArrayList<>();
+    private final PositionService positionService = new PositionService();
+    private Position position;
+    private List<Move> processedMoves;
+    private int index;
+
+    GameReplay(final Game game) {
+        this.game = game;
+        moves.add(new Move());  // blank first move to show the start position
+        moves.addAll(game.getMoves());
+        restart();
+    }
+
+    // plays the game one frame at a time, like the video generator does, and starts again after the last move
+    void nextFrame() {
+        if (!position.isMoving()) {
+            position.stopMoving();
+            if (index == moves.size()) {
+                restart();
+            }
+            // the position fills in the source square, so every replay needs a fresh copy of the move
+            final Move move = Move.from(moves.get(index));
+            index++;
+            processedMoves.add(move);
+            position.startMoving(move);
+        }
+        if (position.isMoving()) {
+            position.doMoveStep();
+        }
+    }
+
+    Game getGame() {
+        return game;
+    }
+
+    Position getPosition() {
+        return position;
+    }
+
+    List<Move> getProcessedMoves() {
+        return processedMoves;
+    }
+
+    List<Move> getMoves() {
+        return moves;
+    }
+
+    private void restart() {
+        position = positionService.generateStartPosition(game);
+        processedMoves = new ArrayList<>();
+        index = 0;
+    }
+
+}
@@ -0,0 +1,47 @@
+package com.brainking.tools.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.brainking.tools.dto.Game;
+import com.brainking.tools.services.ImportService;
+import com.brainking.tools.utils.Constants;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ImportBenchmark {
+
+    @Param({BenchmarkGames.SAMPLE, BenchmarkGames.CHESS, Constants.GRAND})
+    public String game;
+
+    private final ImportService importService = new ImportService();
+    private File pgnFile;
+
+    @Setup
+    public void setUp() throws IOException {
+        pgnFile = BenchmarkGames.writePgn(game, 200);
+    }
+
+    @Benchmark
+    public Game importPgn() throws IOException {
+        return importService.importPgn(pgnFile);
+    }
+
+}
@@ -0,0 +1,52 @@
+package com.brainking.tools.benchmark;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.brainking.tools.dto.Game;
+import com.brainking.tools.dto.Move;
+import com.brainking.tools.utils.Constants;
+
+// SAN parsing of a single move, cycling through all moves of the game
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MoveBenchmark {
+
+    @Param({BenchmarkGames.SAMPLE, Constants.GRAND})
+    public String game;
+
+    private Game parsedGame;
+    private List<Move> moves;
+    private int index;
+
+    @Setup
+    public void setUp() throws IOException {
+        parsedGame = BenchmarkGames.importGame(game, 200);
+        moves = parsedGame.getMoves();
+    }
+
+    @Benchmark
+    public Move parseMove() {
+        final Move move = moves.get(index);
+        index = (index + 1) % moves.size();
+        return new Move(parsedGame, move.getMoveNumber(), move.getPgnCode(), move.getColor());
+    }
+
+}
@@ -0,0 +1,58 @@
+package com.brainking.tools.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.brainking.tools.dto.Position;
+import com.brainking.tools.utils.Constants;
+
+// move animation without rendering: startMoving, doMoveStep, isMoving and stopMoving
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PositionBenchmark {
+
+    @Param({BenchmarkGames.SAMPLE, BenchmarkGames.CHESS, Constants.DARK, Constants.EMBASSY, Constants.GRAND})
+    public String game;
+
+    private GameReplay replay;
+    private Position movingPosition;
+
+    @Setup
+    public void setUp() throws IOException {
+        replay = new GameReplay(BenchmarkGames.importGame(game, 200));
+        // a position in the middle of the first real move
+        final GameReplay movingReplay = new GameReplay(BenchmarkGames.importGame(game, 200));
+        for (int i = 0; i < Constants.MOVE_STEPS / 2 + 1; i++) {
+            movingReplay.nextFrame();
+        }
+        movingPosition = movingReplay.getPosition();
+    }
+
+    @Benchmark
+    public Position playFrame() {
+        replay.nextFrame();
+        return replay.getPosition();
+    }
+
+    @Benchmark
+    public boolean isMoving() {
+        return movingPosition.isMoving();
+    }
+
+}
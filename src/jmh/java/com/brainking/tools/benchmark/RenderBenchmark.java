@@ -0,0 +1,62 @@
+package com.brainking.tools.benchmark;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.brainking.tools.dto.Game;
+import com.brainking.tools.services.RenderService;
+import com.brainking.tools.services.SvgService;
+import com.brainking.tools.utils.Constants;
+import com.brainking.tools.video.FramePool;
+
+// frames per second of the whole frame composition, run with -prof gc for allocations per frame
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RenderBenchmark {
+
+    @Param({BenchmarkGames.SAMPLE, BenchmarkGames.CHESS, Constants.DARK, Constants.THREE_CHECKS, Constants.ATOMIC,
+            Constants.EMBASSY, Constants.GRAND})
+    public String game;
+
+    private RenderService renderService;
+    private GameReplay replay;
+
+    @Setup
+    public void setUp() throws IOException {
+        renderService = new RenderService(new SvgService(64, "", 4), new FramePool(16), 32);
+        final Game benchmarkGame = BenchmarkGames.importGame(game, 200);
+        final int squareSize = Constants.getSquareSize(benchmarkGame);
+        benchmarkGame.addPieceMaps(renderService.getBufferedImageMap("White", squareSize),
+                renderService.getBufferedImageMap("Black", squareSize));
+        benchmarkGame.addNeutralPieceMap(renderService.getNeutralImageMap(squareSize));
+        replay = new GameReplay(benchmarkGame);
+    }
+
+    @Benchmark
+    public int renderFrame() {
+        replay.nextFrame();
+        final BufferedImage image = renderService.getRenderedImage(replay.getGame(), replay.getPosition(), replay.getProcessedMoves());
+        // one pixel keeps the frame alive until it is rendered, the frame goes back to the pool like after encoding
+        final int pixel = image.getRGB(0, 0);
+        renderService.releaseImage(image);
+        return pixel;
+    }
+
+}
@@ -0,0 +1,51 @@
+package com.brainking.tools.benchmark;
+
+import java.awt.image.BufferedImage;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.brainking.tools.dto.Game;
+import com.brainking.tools.services.SvgService;
+import com.brainking.tools.utils.Constants;
+
+// cold transcoding of all pieces of one colour, the sprite cache is disabled
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SvgBenchmark {
+
+    @Param({"1", "4"})
+    public int threads;
+
+    private SvgService svgService;
+    private Map<String, String> imageResourceMap;
+    private int squareSize;
+
+    @Setup
+    public void setUp() {
+        svgService = new SvgService(0, "", threads);
+        imageResourceMap = svgService.getImageResourceMap("White");
+        squareSize = Constants.getSquareSize(new Game("benchmark"));
+    }
+
+    @Benchmark
+    public Map<String, BufferedImage> transcodePieces() {
+        return svgService.getBufferedImageMap(imageResourceMap, squareSize);
+    }
+
+}
@@ -1,8 +1,10 @@
 package com.brainking.tools;
 
+import com.brainking.tools.dto.RenderProfile;
 import com.brainking.tools.services.EncoderService;
 import com.brainking.tools.services.FileService;
 import com.brainking.tools.services.utils.EncoderCoreService;
+import com.brainking.tools.video.FramePool;
 
 public final class AudioVideoTester {
 
@@ -10,11 +12,12 @@ public final class AudioVideoTester {
     }
 
     void main() {
-        final EncoderService encoderService = new EncoderService(new EncoderCoreService(), new FileService());
+        final EncoderService encoderService = new EncoderService(new EncoderCoreService(), new FileService(), new FramePool(0), "jcodec", 0, "medium", 23, 0);
         encoderService.addAudioToVideo(
                 "x",
                 "y",
-                "z"
+                "z",
+                RenderProfile.SOCIAL
         );
     }
 
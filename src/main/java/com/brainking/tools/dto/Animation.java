@@ -0,0 +1,33 @@
+package com.brainking.tools.dto;
+
+import com.brainking.tools.utils.Constants;
+
+public final class Animation {
+
+    // every move takes the move steps of the render profile with linear movement
+    public static final Animation DEFAULT = new Animation(Easing.LINEAR, 0);
+
+    private final Easing easing;
+    private final int stepsPerSquare;
+
+    public Animation(final Easing easing, final int stepsPerSquare) {
+        this.easing = easing;
+        this.stepsPerSquare = stepsPerSquare;
+    }
+
+    public Easing getEasing() {
+        return easing;
+    }
+
+    public int getSteps(final int distance, final int squareSize, final int moveSteps) {
+        int steps = moveSteps;
+        if (stepsPerSquare > 0) {
+            // longer moves take more frames, a knight jump counts as two squares,
+            // the steps per square are given for MOVE_STEPS frames per move
+            final int squares = (distance + squareSize - 1) / squareSize;
+            steps = Math.clamp((long) squares * stepsPerSquare * moveSteps / Constants.MOVE_STEPS, Math.max(1, moveSteps / 3), moveSteps * 2);
+        }
+        return steps;
+    }
+
+}
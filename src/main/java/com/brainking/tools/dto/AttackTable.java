@@ -0,0 +1,77 @@
+package com.brainking.tools.dto;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+final class AttackTable {
+
+    // one table per board geometry (6x6, 8x8, 10x8, 10x10), shared by all positions
+    private static final Map<Integer, AttackTable> TABLES = new ConcurrentHashMap<>();
+
+    private final int width;
+    private final int height;
+    private final int squareCount;
+    // rays[type.ordinal() * squareCount + square][direction] lists the reachable squares from the nearest one outwards,
+    // in the direction order of the type, sliders run to the board edge and jumps have a single square
+    private final int[][][] rays;
+
+    private AttackTable(final int width, final int height) {
+        this.width = width;
+        this.height = height;
+        this.squareCount = width * height;
+        final int maxDistance = Math.max(width, height) - 1;
+        rays = new int[Type.values().length * squareCount][][];
+        for (final Type type : Type.values()) {
+            for (int square = 0; square < squareCount; square++) {
+                final int[][] squareRays = new int[type.getDirectionCount()][];
+                for (int direction = 0; direction < type.getDirectionCount(); direction++) {
+                    final int rowStep = type.getRowStep(direction);
+                    final int columnStep = type.getColumnStep(direction);
+                    // knight jumps of the compound pieces always have a fixed distance
+                    final boolean jump = type.getMaxMoveDistance() == 1 || Math.abs(rowStep) == 2 || Math.abs(columnStep) == 2;
+                    squareRays[direction] = createRay(square / width, square % width, rowStep, columnStep,
+                            jump ? 1 : maxDistance);
+                }
+                rays[type.ordinal() * squareCount + square] = squareRays;
+            }
+        }
+    }
+
+    static AttackTable of(final int width, final int height) {
+        return TABLES.computeIfAbsent(width << 8 | height, key -> new AttackTable(width, height));
+    }
+
+    private int[] createRay(final int row, final int column, final int rowStep, final int columnStep,
+                            final int maxDistance) {
+        int length = 0;
+        while (length < maxDistance && isValidSquare(row + rowStep * (length + 1), column + columnStep * (length + 1))) {
+            length++;
+        }
+        final int[] ray = new int[length];
+        for (int distance = 1; distance <= length; distance++) {
+            ray[distance - 1] = getSquare(row + rowStep * distance, column + columnStep * distance);
+        }
+        return ray;
+    }
+
+    private boolean isValidSquare(final int row, final int column) {
+        return row >= 0 && row < height && column >= 0 && column < width;
+    }
+
+    int[][] getRays(final Type type, final int row, final int column) {
+        return rays[type.ordinal() * squareCount + getSquare(row, column)];
+    }
+
+    int getSquare(final int row, final int column) {
+        return row * width + column;
+    }
+
+    int getRow(final int square) {
+        return square / width;
+    }
+
+    int getColumn(final int square) {
+        return square % width;
+    }
+
+}
@@ -0,0 +1,130 @@
+package com.brainking.tools.dto;
+
+public final class Bitboard {
+
+    // squares are numbered row by row from a1, two longs hold every board up to 10x10 (Grand),
+    // square >> 6 selects the long and 1L << square the bit, as the shift distance is taken modulo 64
+    private static final int MAX_SQUARES = 128;
+    private static final int NEUTRAL = Color.values().length;
+
+    private final int width;
+    private final int height;
+    // one 128-bit set per colour (neutral pieces last) and per type, stored as low and high long
+    private final long[] colorBits = new long[(NEUTRAL + 1) * 2];
+    private final long[] typeBits = new long[Type.values().length * 2];
+    private final long[] visibleBits = new long[2];
+    // squares changed by setPiece since the last clearChanged, e.g. to update Dark visibility incrementally
+    private final long[] changedBits = new long[2];
+    private final long[] boardMask = new long[2];
+
+    public Bitboard(final int width, final int height) {
+        if (width * height > MAX_SQUARES) {
+            throw new IllegalArgumentException("Board " + width + "x" + height + " does not fit into 128 bits.");
+        }
+        this.width = width;
+        this.height = height;
+        for (int square = 0; square < width * height; square++) {
+            boardMask[square >> 6] |= 1L << square;
+        }
+    }
+
+    public void copyFrom(final Bitboard from) {
+        System.arraycopy(from.colorBits, 0, colorBits, 0, colorBits.length);
+        System.arraycopy(from.typeBits, 0, typeBits, 0, typeBits.length);
+        System.arraycopy(from.visibleBits, 0, visibleBits, 0, visibleBits.length);
+        System.arraycopy(from.changedBits, 0, changedBits, 0, changedBits.length);
+    }
+
+    public void setPiece(final int row, final int column, final Piece piece) {
+        final int square = getSquare(row, column);
+        final int half = square >> 6;
+        final long bit = 1L << square;
+        changedBits[half] |= bit;
+        for (int i = half; i < colorBits.length; i += 2) {
+            colorBits[i] &= ~bit;
+        }
+        for (int i = half; i < typeBits.length; i += 2) {
+            typeBits[i] &= ~bit;
+        }
+        if (piece != null) {
+            colorBits[getColorIndex(piece.getColor()) * 2 + half] |= bit;
+            typeBits[piece.getType().ordinal() * 2 + half] |= bit;
+        }
+    }
+
+    public boolean isOccupied(final int row, final int column) {
+        final int square = getSquare(row, column);
+        final int half = square >> 6;
+        boolean occupied = false;
+        for (int i = half; i < colorBits.length && !occupied; i += 2) {
+            occupied = (colorBits[i] & 1L << square) != 0;
+        }
+        return occupied;
+    }
+
+    public boolean hasPiece(final int row, final int column, final Color color, final Type type) {
+        final int square = getSquare(row, column);
+        final int half = square >> 6;
+        return (colorBits[getColorIndex(color) * 2 + half] & typeBits[type.ordinal() * 2 + half] & 1L << square) != 0;
+    }
+
+    public boolean contains(final Color color, final Type type) {
+        final int colorIndex = getColorIndex(color) * 2;
+        final int typeIndex = type.ordinal() * 2;
+        return (colorBits[colorIndex] & typeBits[typeIndex]) != 0 || (colorBits[colorIndex + 1] & typeBits[typeIndex + 1]) != 0;
+    }
+
+    public int count(final Color color) {
+        final int colorIndex = getColorIndex(color) * 2;
+        return Long.bitCount(colorBits[colorIndex]) + Long.bitCount(colorBits[colorIndex + 1]);
+    }
+
+    public boolean isVisible(final int row, final int column) {
+        final int square = getSquare(row, column);
+        return (visibleBits[square >> 6] & 1L << square) != 0;
+    }
+
+    public void setAllVisible(final boolean visible) {
+        visibleBits[0] = visible ? boardMask[0] : 0;
+        visibleBits[1] = visible ? boardMask[1] : 0;
+    }
+
+    public void setVisibleBits(final long low, final long high) {
+        visibleBits[0] = low & boardMask[0];
+        visibleBits[1] = high & boardMask[1];
+    }
+
+    public long getVisibleBits(final int half) {
+        return visibleBits[half];
+    }
+
+    public long getChangedBits(final int half) {
+        return changedBits[half];
+    }
+
+    public boolean isChanged(final int square) {
+        return (changedBits[square >> 6] & 1L << square) != 0;
+    }
+
+    public void clearChanged() {
+        changedBits[0] = 0;
+        changedBits[1] = 0;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    private int getSquare(final int row, final int column) {
+        return row * width + column;
+    }
+
+    private static int getColorIndex(final Color color) {
+        return color == null ? NEUTRAL : color.ordinal();
+    }
+
+}
@@ -0,0 +1,58 @@
+package com.brainking.tools.dto;
+
+public enum Easing {
+
+    LINEAR {
+        @Override
+        public int interpolate(final int from, final int to, final int step, final int steps) {
+            // integer arithmetic, the frames stay exactly the same as before the easing curves
+            return from + step * (to - from) / steps;
+        }
+
+        @Override
+        double ease(final double progress) {
+            return progress;
+        }
+    },
+    EASE_IN {
+        @Override
+        double ease(final double progress) {
+            return progress * progress;
+        }
+    },
+    EASE_OUT {
+        @Override
+        double ease(final double progress) {
+            return progress * (2 - progress);
+        }
+    },
+    EASE_IN_OUT {
+        @Override
+        double ease(final double progress) {
+            // smoothstep, slow start and slow landing
+            return progress * progress * (3 - 2 * progress);
+        }
+    };
+
+    public static Easing fromName(final String name) {
+        // unknown names (e.g. a typo in animation.easing) keep the linear movement
+        Easing result = LINEAR;
+        if (name != null) {
+            final String easingName = name.trim().replace('-', '_');
+            for (final Easing easing : values()) {
+                if (easing.name().equalsIgnoreCase(easingName)) {
+                    result = easing;
+                }
+            }
+        }
+        return result;
+    }
+
+    public int interpolate(final int from, final int to, final int step, final int steps) {
+        // computed in floating point and rounded once to the pixel grid
+        return from + (int) Math.round((to - from) * ease((double) step / steps));
+    }
+
+    abstract double ease(double progress);
+
+}
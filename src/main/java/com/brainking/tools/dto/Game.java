@@ -1,7 +1,5 @@
 package com.brainking.tools.dto;
 
-import com.brainking.tools.utils.Constants;
-
 import java.awt.image.BufferedImage;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
@@ -21,16 +19,22 @@ public class Game {
     private static final DateTimeFormatter INPUT = DateTimeFormatter.ofPattern("yyyy.MM.dd");
     private static final DateTimeFormatter OUTPUT = DateTimeFormatter.ofPattern("d. MMMM yyyy", Locale.ENGLISH);
     private static final String RESULT = "Result";
+    private static final String VARIANT = "Variant";
+    private static final String RENDER_PROFILE = "RenderProfile";
 
     private final String name;
     private final Map<String, String> metadataMap = new HashMap<>();
     private final List<Move> moves = new ArrayList<>();
     private String pgnCode;
+    private Variant variant = Variant.CHESS;
+    private Animation animation = Animation.DEFAULT;
+    private RenderProfile profile = RenderProfile.SOCIAL;
     private int width;
     private int height;
     private Color orientation;
     private Map<String, BufferedImage> whitePieceMap;
     private Map<String, BufferedImage> blackPieceMap;
+    private Map<String, BufferedImage> neutralPieceMap;
 
     public Game(final String name) {
         this.name = name;
@@ -38,6 +42,7 @@ public class Game {
         height = 8;
         whitePieceMap = new HashMap<>();
         blackPieceMap = new HashMap<>();
+        neutralPieceMap = new HashMap<>();
     }
 
     public void addPieceMaps(final Map<String, BufferedImage> whitePieceMap,
@@ -46,16 +51,29 @@ public class Game {
         this.blackPieceMap = blackPieceMap;
     }
 
+    public void addNeutralPieceMap(final Map<String, BufferedImage> neutralPieceMap) {
+        this.neutralPieceMap = neutralPieceMap;
+    }
+
+    public List<Map<String, BufferedImage>> getPieceMaps() {
+        return List.of(whitePieceMap, blackPieceMap, neutralPieceMap);
+    }
+
     public BufferedImage getFromPieceMap(final Color color, final String key) {
+        // neutral pieces (e.g. ice cubes) have no color
         return switch (color) {
             case Color.WHITE -> whitePieceMap.get(key);
             case Color.BLACK -> blackPieceMap.get(key);
+            case null -> neutralPieceMap.get(key);
         };
     }
 
     public void addMetadata(final String key, final String value) {
         LOG.debug(key + ": " + value);
         metadataMap.put(key, value);
+        if (VARIANT.equals(key)) {
+            variant = Variant.fromName(value);
+        }
     }
 
     public void addMove(final Move move) {
@@ -67,16 +85,8 @@ public class Game {
     }
 
     public void setDimensionFromVariant() {
-        if (isVariant(Constants.LOS_ALAMOS)) {
-            width = 6;
-            height = 6;
-        } else if (isVariant(Constants.EMBASSY) || isVariant(Constants.JANUS) || isVariant(Constants.CAPABLANCA_RANDOM)) {
-            width = 10;
-            height = 8;
-        } else if (isVariant(Constants.GRAND)) {
-            width = 10;
-            height = 10;
-        }
+        width = variant.getWidth();
+        height = variant.getHeight();
     }
 
     public void setPgnCode(final String pgnCode) {
@@ -87,6 +97,27 @@ public class Game {
         return pgnCode;
     }
 
+    public void setAnimation(final Animation animation) {
+        this.animation = animation;
+    }
+
+    public Animation getAnimation() {
+        return animation;
+    }
+
+    public void setProfile(final RenderProfile profile) {
+        this.profile = profile;
+    }
+
+    public RenderProfile getProfile() {
+        return profile;
+    }
+
+    public String getProfileName() {
+        // the RenderProfile tag of the PGN, if any
+        return metadataMap.get(RENDER_PROFILE);
+    }
+
     public int getWidth() {
         return width;
     }
@@ -123,12 +154,16 @@ public class Game {
         return metadataMap.get("FEN");
     }
 
-    public String getVariant() {
-        return metadataMap.get("Variant");
+    public String getVariantName() {
+        return metadataMap.get(VARIANT);
+    }
+
+    public Variant getVariant() {
+        return variant;
     }
 
-    public boolean isVariant(final String variant) {
-        return variant.equalsIgnoreCase(getVariant());
+    public boolean isVariant(final Variant variant) {
+        return this.variant == variant;
     }
 
     public String getEvent() {
@@ -1,15 +1,13 @@
 package com.brainking.tools.dto;
 
-import com.brainking.tools.utils.Constants;
-
 public class Move {
 
-    private static final String CHECK = "+";
-    private static final String CHECKMATE = "#";
-    private static final String PROMOTION = "=";
-    private static final String RELAY = "R";
-    private static final String PLACE = "@";
-    private static final String CAPTURE = "x";
+    private static final char CHECK = '+';
+    private static final char CHECKMATE = '#';
+    private static final char PROMOTION = '=';
+    private static final char RELAY = 'R';
+    private static final char PLACE = '@';
+    private static final char CAPTURE = 'x';
 
     private static final String UNFINISHED_MOVE = "?-";
     private static final String SHORT_CASTLING = "O-O";
@@ -42,7 +40,7 @@ public class Move {
         this.pgnCode = pgnCode;
         this.color = color;
         checkScreenshotId(pgnCode);
-        setMoveParameters(game, pgnCode, color);
+        setMoveParameters(game, this.pgnCode, color);
     }
 
     public static Move from(final Move from) {
@@ -61,8 +59,10 @@ public class Move {
         move.castlingLong = from.castlingLong;
         move.capture = from.capture;
         move.checkmate = from.checkmate;
+        move.relayed = from.relayed;
         move.ambiguous = from.ambiguous;
         move.place = from.place;
+        move.screenshotId = from.screenshotId;
         return move;
     }
 
@@ -78,14 +78,6 @@ public class Move {
         return pgnCode;
     }
 
-    public int[][] getMoveDirectionArray() {
-        return type.getMoveDirectionArray();
-    }
-
-    public int getMaxMoveDistance() {
-        return type.getMaxMoveDistance();
-    }
-
     public Type getType() {
         return type;
     }
@@ -94,9 +86,8 @@ public class Move {
         return relayed ? Type.KNIGHT : type;
     }
 
-    public boolean isCastlingType(final String variant) {
-        return Constants.KNIGHTMATE.equals(variant) && type == Type.KNIGHT ||
-                !Constants.KNIGHTMATE.equals(variant) && type == Type.KING;
+    public boolean isCastlingType(final Variant variant) {
+        return type == variant.getRoyalType();
     }
 
     public boolean isPawn() {
@@ -107,10 +98,6 @@ public class Move {
         return type == Type.KING;
     }
 
-    public boolean isKnightLikeType() {
-        return type == Type.ARCHBISHOP || type == Type.CHANCELLOR || type == Type.JANUS;
-    }
-
     public Color getColor() {
         return color;
     }
@@ -183,74 +170,70 @@ public class Move {
         }
     }
 
-    private void setMoveParameters(final Game game, final String pgnCode, final Color color) {
-        // get piece type and target square
-        final String[] array = pgnCode.split("");
-        int index = array.length - 1;
-        if (CHECK.equals(array[index]) || CHECKMATE.equals(array[index])) {
+    private void setMoveParameters(final Game game, final CharSequence code, final Color color) {
+        // the code is read char by char from the end, the screenshot ID is already removed
+        int index = code.length() - 1;
+        if (code.charAt(index) == CHECK || code.charAt(index) == CHECKMATE) {
             check = true;
-            if (CHECKMATE.equals(array[index])) {
+            if (code.charAt(index) == CHECKMATE) {
                 checkmate = true;
             }
             index--;
         }
-        if (pgnCode.startsWith(UNFINISHED_MOVE)) {
+        if (startsWith(code, UNFINISHED_MOVE)) {
             // ?-e4
             ambiguous = true;
-            toColumn = getColumnIndex(array[2]);
-            toRow = getRowIndex(array[3]);
-        } else if (pgnCode.startsWith(LONG_CASTLING)) {
+            toColumn = getColumnIndex(code.charAt(2));
+            toRow = getRowIndex(code, 3, index);
+        } else if (startsWith(code, LONG_CASTLING)) {
             castlingLong = true;
-            type = game.isVariant(Constants.KNIGHTMATE) ? Type.KNIGHT : Type.KING;
+            type = game.getVariant().getRoyalType();
             fromRow = color == Color.WHITE ? 0 : game.getHeight() - 1;
             fromColumn = 4;
             toRow = fromRow;
-            toColumn = game.isVariant(Constants.EMBASSY) ? 7 : 2;
-            if (game.isVariant(Constants.JANUS)) {
-                toColumn = 8;
-            }
-        } else if (pgnCode.startsWith(SHORT_CASTLING)) {
+            toColumn = game.getVariant().getLongCastlingKingColumn();
+        } else if (startsWith(code, SHORT_CASTLING)) {
             castlingShort = true;
-            type = game.isVariant(Constants.KNIGHTMATE) ? Type.KNIGHT : Type.KING;
+            type = game.getVariant().getRoyalType();
             fromRow = color == Color.WHITE ? 0 : game.getHeight() - 1;
             fromColumn = 4;
             toRow = fromRow;
-            toColumn = game.isVariant(Constants.EMBASSY) || game.isVariant(Constants.JANUS) ? 1 : 6;
+            toColumn = game.getVariant().getShortCastlingKingColumn();
         } else {
-            handleOtherSymbols(array, index);
+            handleOtherSymbols(code, index);
         }
     }
 
-    private void handleOtherSymbols(final String[] array, final int previousIndex) {
-        int index = getIndexAfterPromoting(array, previousIndex);
-        index = getIndexAfterRelaying(array, index);
-        index = getIndexAfterMoving(array, index);
+    private void handleOtherSymbols(final CharSequence code, final int previousIndex) {
+        int index = getIndexAfterPromoting(code, previousIndex);
+        index = getIndexAfterRelaying(code, index);
+        index = getIndexAfterMoving(code, index);
         // simple pawn moves would end here, so let's check if the index is not already at the start
-        if (index > 0 && PLACE.equals(array[index])) {
-            getIndexAfterPlacing(array, index);
-        } else if (index > 0 && CAPTURE.equals(array[index])) {
-            getIndexAfterCapturing(array, index);
+        if (index > 0 && code.charAt(index) == PLACE) {
+            getIndexAfterPlacing(code, index);
+        } else if (index > 0 && code.charAt(index) == CAPTURE) {
+            getIndexAfterCapturing(code, index);
         } else {
-            finishTheMove(array, index);
+            finishTheMove(code, index);
         }
     }
 
-    private int getIndexAfterPromoting(final String[] array, final int previousIndex) {
+    private int getIndexAfterPromoting(final CharSequence code, final int previousIndex) {
         // handle pawn promoting
         int index = previousIndex;
-        if (PROMOTION.equals(array[index - 1])) {
+        if (code.charAt(index - 1) == PROMOTION) {
             // e8=Q (sample promotion)
-            promoteType = Type.findByCode(array[index]);
+            promoteType = Type.findByCode(code.charAt(index));
             index--;
             index--;
         }
         return index;
     }
 
-    private int getIndexAfterRelaying(final String[] array, final int previousIndex) {
+    private int getIndexAfterRelaying(final CharSequence code, final int previousIndex) {
         // handle knight relay
         int index = previousIndex;
-        if (RELAY.equals(array[index])) {
+        if (code.charAt(index) == RELAY) {
             // e4R
             relayed = true;
             index--;
@@ -258,37 +241,37 @@ public class Move {
         return index;
     }
 
-    private int getIndexAfterMoving(final String[] array, final int previousIndex) {
+    private int getIndexAfterMoving(final CharSequence code, final int previousIndex) {
         // after we removed the check and promotion, the move ends with the target square
         int index = previousIndex;
-        toRow = getRowIndex(array[index - 1] + array[index]);
+        toRow = getRowIndex(code, index - 1, index);
         if (toRow >= 0) {  // row 10 detected, two digits
             index--;
         } else {
-            toRow = getRowIndex(array[index]);
+            toRow = getRowIndex(code, index, index);
         }
         index--;
-        toColumn = getColumnIndex(array[index]);
+        toColumn = getColumnIndex(code.charAt(index));
         index--;
         return index;
     }
 
-    private int getIndexAfterPlacing(final String[] array, final int previousIndex) {
+    private int getIndexAfterPlacing(final CharSequence code, final int previousIndex) {
         // place extra piece
         int index = previousIndex;
         place = true;
         index--;
-        type = Type.findByCode(array[index]);
+        type = Type.findByCode(code.charAt(index));
         return index;
     }
 
-    private int getIndexAfterCapturing(final String[] array, final int previousIndex) {
+    private int getIndexAfterCapturing(final CharSequence code, final int previousIndex) {
         // // after removing the target square, the move should end with a capture sign
         int index = previousIndex;
         capture = true;
         index--;
-        final int fromColumnIndex = getColumnIndex(array[index]);
-        final int fromRowIndex = getRowIndex(array[index]);
+        final int fromColumnIndex = getColumnIndex(code.charAt(index));
+        final int fromRowIndex = getRowIndex(code, index, index);
         if (fromColumnIndex >= 0) {
             // ?dxe4 (sample capture)
             fromColumn = fromColumnIndex;
@@ -298,26 +281,26 @@ public class Move {
                 type = Type.PAWN;
             } else {
                 // Ndxe4
-                type = Type.findByCode(array[index]);
+                type = Type.findByCode(code.charAt(index));
             }
         } else if (fromRowIndex >= 0) {
             // N6xd4
             fromRow = fromRowIndex;
             index--;
-            type = Type.findByCode(array[index]);
+            type = Type.findByCode(code.charAt(index));
         } else {
-            type = Type.findByCode(array[index]);
+            type = Type.findByCode(code.charAt(index));
         }
         return index;
     }
 
-    private void finishTheMove(final String[] array, final int previousIndex) {
+    private void finishTheMove(final CharSequence code, final int previousIndex) {
         int index = previousIndex;
         if (index < 0) {
             type = Type.PAWN;
         } else {
-            final int fromColumnIndex = getColumnIndex(array[index]);
-            final int fromRowIndex = getRowIndex(array[index]);
+            final int fromColumnIndex = getColumnIndex(code.charAt(index));
+            final int fromRowIndex = getRowIndex(code, index, index);
             if (fromColumnIndex >= 0) {
                 fromColumn = fromColumnIndex;
                 index--;
@@ -325,28 +308,30 @@ public class Move {
                 fromRow = fromRowIndex;
                 index--;
             }
-            type = Type.findByCode(array[index]);
+            type = index < 0 ? Type.PAWN : Type.findByCode(code.charAt(index));
         }
     }
 
-    private int getColumnIndex(final String columnCode) {
-        int index = -1;
-        for (int i = 0; i < 10; i++) {
-            if (Constants.getColumn(i).equals(columnCode)) {
-                index = i;
-                break;
-            }
+    private static boolean startsWith(final CharSequence code, final String prefix) {
+        boolean result = code.length() >= prefix.length();
+        for (int i = 0; i < prefix.length() && result; i++) {
+            result = code.charAt(i) == prefix.charAt(i);
         }
-        return index;
+        return result;
     }
 
-    private int getRowIndex(final String rowCode) {
+    private static int getColumnIndex(final char columnCode) {
+        // columns a-j
+        return columnCode >= 'a' && columnCode <= 'j' ? columnCode - 'a' : -1;
+    }
+
+    private static int getRowIndex(final CharSequence code, final int from, final int to) {
+        // rows 1-9 are a single digit, row 10 has two, anything else is not a row
         int index = -1;
-        for (int i = 0; i < 10; i++) {
-            if (Constants.getRow(i).equals(rowCode)) {
-                index = i;
-                break;
-            }
+        if (from == to && from >= 0 && from < code.length() && code.charAt(from) >= '1' && code.charAt(from) <= '9') {
+            index = code.charAt(from) - '1';
+        } else if (from >= 0 && to == from + 1 && to < code.length() && code.charAt(from) == '1' && code.charAt(to) == '0') {
+            index = 9;
         }
         return index;
     }
@@ -2,22 +2,40 @@ package com.brainking.tools.dto;
 
 import com.brainking.tools.utils.Constants;
 
-import java.util.Arrays;
-
 public class Piece {
 
     private Color color;
     private Type type;
     private int pieceX;
     private int pieceY;
-    private int[] movingX;
-    private int[] movingY;
+    // the path is computed on demand from the start and the target, so no arrays are allocated per move
+    private int startX;
+    private int startY;
+    private int targetX;
+    private int targetY;
+    private Easing easing = Easing.LINEAR;
+    private int moveSteps;
     private int moveStepIndex;
 
     public static Piece from(final Piece from) {
         return new Piece(from.color, from.type);
     }
 
+    public static Piece copyOf(final Piece from) {
+        // unlike from(), keeps the coordinates and the animation state
+        final Piece piece = new Piece(from.color, from.type);
+        piece.pieceX = from.pieceX;
+        piece.pieceY = from.pieceY;
+        piece.startX = from.startX;
+        piece.startY = from.startY;
+        piece.targetX = from.targetX;
+        piece.targetY = from.targetY;
+        piece.easing = from.easing;
+        piece.moveSteps = from.moveSteps;
+        piece.moveStepIndex = from.moveStepIndex;
+        return piece;
+    }
+
     public Piece(final Type type) {
         // for neutral pieces (holes, ice cubes)
         this.type = type;
@@ -51,16 +69,14 @@ public class Piece {
 
     public void setTargetXYAndSteps(final Game game, final int toColumn, final int toRow) {
         final int squareSize = Constants.getSquareSize(game);
-        final int targetX = Constants.getBoardX(game) + toColumn * squareSize;
-        final int targetY = Constants.getBoardY(game) + (game.getHeight() - 1 - toRow) * squareSize;
-        movingX = new int[Constants.MOVE_STEPS];
-        movingY = new int[Constants.MOVE_STEPS];
-        for (int i = 0; i < Constants.MOVE_STEPS; i++) {
-            movingX[i] = pieceX + i * (targetX - pieceX) / Constants.MOVE_STEPS;
-            movingY[i] = pieceY + i * (targetY - pieceY) / Constants.MOVE_STEPS;
-        }
-        movingX[Constants.MOVE_STEPS - 1] = targetX;
-        movingY[Constants.MOVE_STEPS - 1] = targetY;
+        final Animation animation = game.getAnimation();
+        startX = pieceX;
+        startY = pieceY;
+        targetX = Constants.getBoardX(game) + toColumn * squareSize;
+        targetY = Constants.getBoardY(game) + (game.getHeight() - 1 - toRow) * squareSize;
+        easing = animation.getEasing();
+        moveSteps = animation.getSteps(Math.max(Math.abs(targetX - startX), Math.abs(targetY - startY)), squareSize,
+                game.getProfile().getMoveSteps());
     }
 
     public void promoteTo(final Type newType) {
@@ -76,22 +92,29 @@ public class Piece {
     }
 
     public boolean isMoving() {
-        return movingX != null && movingY != null;
+        return moveSteps > 0;
     }
 
     public void doMoveStep() {
-        pieceX = movingX == null ? -1 : movingX[moveStepIndex];
-        pieceY = movingY == null ? -1 : movingY[moveStepIndex];
+        if (!isMoving()) {
+            pieceX = -1;
+            pieceY = -1;
+        } else if (moveStepIndex >= moveSteps - 1) {
+            // the last step lands exactly on the target square
+            pieceX = targetX;
+            pieceY = targetY;
+        } else {
+            pieceX = easing.interpolate(startX, targetX, moveStepIndex, moveSteps);
+            pieceY = easing.interpolate(startY, targetY, moveStepIndex, moveSteps);
+        }
         moveStepIndex++;
-        if (moveStepIndex == Constants.MOVE_STEPS) {
+        if (moveStepIndex >= moveSteps) {
             stopMoving();
         }
     }
 
-    @SuppressWarnings("PMD.NullAssignment")
     public void stopMoving() {
-        movingX = null;
-        movingY = null;
+        moveSteps = 0;
         moveStepIndex = 0;
     }
 
@@ -143,14 +166,6 @@ public class Piece {
         return type.isPlayable();
     }
 
-    public int[][] getMoveDirectionArray() {
-        return type.getMoveDirectionArray();
-    }
-
-    public int getMaxMoveDistance() {
-        return type.getMaxMoveDistance();
-    }
-
     @Override
     public String toString() {
         return "Piece{" +
@@ -158,8 +173,9 @@ public class Piece {
                 ", type=" + type +
                 ", pieceX=" + pieceX +
                 ", pieceY=" + pieceY +
-                ", movingX=" + Arrays.toString(movingX) +
-                ", movingY=" + Arrays.toString(movingY) +
+                ", targetX=" + targetX +
+                ", targetY=" + targetY +
+                ", moveSteps=" + moveSteps +
                 ", moveStepIndex=" + moveStepIndex +
                 '}';
     }
@@ -1,16 +1,13 @@
 package com.brainking.tools.dto;
 
-import com.brainking.tools.utils.Constants;
-
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.EnumMap;
-import java.util.EnumSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
-import java.util.Set;
 
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
@@ -21,47 +18,132 @@ public class Position {
     private static final Logger LOG = LoggerFactory.getLogger(Position.class);
 
     private final Game game;
+    // piece objects keep the rendering coordinates, the bitboard holds the board state in primitives
     private final Piece[][] pieceGrid;
-    private final boolean[][] visibleGrid;
+    private final Bitboard bitboard;
+    private final AttackTable attackTable;
+    // Dark chess: the squares seen by the own piece on each square (including its own square), two longs per square
+    private final long[] reach;
     private Move currentMove;
     private int targetRow;
     private int targetColumn;
     private final Map<Color, List<Piece>> capturedPieces = new EnumMap<>(Color.class);
-    private final Map<Color, Integer> checkCounter = new EnumMap<>(Color.class);
-    private final Map<Color, Boolean> kingMoved = new EnumMap<>(Color.class);
+    // indexed by Color.ordinal()
+    private final int[] checkCounter = new int[Color.values().length];
+    private final boolean[] kingMoved = new boolean[Color.values().length];
+    // pieces with an animation in progress, on the board or among the captured ones
+    private final List<Piece> movingPieces = new ArrayList<>();
     private boolean finished;
+    private int revision;
+    // Zobrist hash of the pieces on the board, updated with every change of the board
+    private long pieceHash;
 
     public Position(final Game game) {
         this.game = game;
         pieceGrid = new Piece[game.getHeight()][game.getWidth()];
-        visibleGrid = new boolean[game.getHeight()][game.getWidth()];
-        setVisibleGrid(true);
+        bitboard = new Bitboard(game.getWidth(), game.getHeight());
+        attackTable = AttackTable.of(game.getWidth(), game.getHeight());
+        reach = new long[game.getWidth() * game.getHeight() * 2];
+        bitboard.setAllVisible(true);
         capturedPieces.put(Color.WHITE, new ArrayList<>());
         capturedPieces.put(Color.BLACK, new ArrayList<>());
-        checkCounter.put(Color.WHITE, 0);
-        checkCounter.put(Color.BLACK, 0);
-        kingMoved.put(Color.WHITE, false);
-        kingMoved.put(Color.BLACK, false);
         targetRow = -1;
         targetColumn = -1;
     }
 
+    public Position snapshot() {
+        // detached copy of the whole state, so a move can be replayed and rendered on another thread
+        final Position position = new Position(game);
+        for (int row = 0; row < game.getHeight(); row++) {
+            for (int column = 0; column < game.getWidth(); column++) {
+                if (pieceGrid[row][column] != null) {
+                    position.pieceGrid[row][column] = Piece.copyOf(pieceGrid[row][column]);
+                    position.addMovingPiece(position.pieceGrid[row][column]);
+                }
+            }
+        }
+        position.bitboard.copyFrom(bitboard);
+        System.arraycopy(reach, 0, position.reach, 0, reach.length);
+        System.arraycopy(checkCounter, 0, position.checkCounter, 0, checkCounter.length);
+        System.arraycopy(kingMoved, 0, position.kingMoved, 0, kingMoved.length);
+        for (final Color color : Color.values()) {
+            for (final Piece piece : capturedPieces.get(color)) {
+                final Piece capturedPiece = Piece.copyOf(piece);
+                position.capturedPieces.get(color).add(capturedPiece);
+                position.addMovingPiece(capturedPiece);
+            }
+        }
+        if (currentMove != null) {
+            position.currentMove = Move.from(currentMove);
+        }
+        position.targetRow = targetRow;
+        position.targetColumn = targetColumn;
+        position.finished = finished;
+        position.revision = revision;
+        position.pieceHash = pieceHash;
+        return position;
+    }
+
     public boolean isVisible(final int row, final int column) {
-        return visibleGrid[row][column];
+        return bitboard.isVisible(row, column);
     }
 
     public Piece[][] getPieceGrid() {
         return Arrays.copyOf(pieceGrid, pieceGrid.length);
     }
 
+    public Bitboard getBitboard() {
+        return bitboard;
+    }
+
+    public int getRevision() {
+        // changes whenever anything but the coordinates of moving pieces changes
+        return revision;
+    }
+
+    public long getHash() {
+        // everything the frame is rendered from, except the coordinates of moving pieces
+        long hash = getBoardHash();
+        for (final Color color : Color.values()) {
+            long captured = 0;
+            int index = 0;
+            for (final Piece piece : capturedPieces.get(color)) {
+                captured ^= Zobrist.capturedKey(index, piece);
+                index++;
+            }
+            hash = Zobrist.mix(hash, 2 + color.ordinal(), captured);
+            hash = Zobrist.mix(hash, 4 + color.ordinal(), checkCounter[color.ordinal()]);
+        }
+        return hash;
+    }
+
+    public long getBoardHash() {
+        // only what the board squares are painted from: pieces, visibility and highlighted squares,
+        // captured pieces and check counters are drawn outside of the board
+        long hash = pieceHash;
+        hash = Zobrist.mix(hash, 0, bitboard.getVisibleBits(0));
+        hash = Zobrist.mix(hash, 1, bitboard.getVisibleBits(1));
+        if (currentMove != null) {
+            hash = Zobrist.mix(hash, 6, currentMove.fromRow);
+            hash = Zobrist.mix(hash, 7, currentMove.fromColumn);
+            hash = Zobrist.mix(hash, 8, currentMove.toRow);
+            hash = Zobrist.mix(hash, 9, currentMove.toColumn);
+            hash = Zobrist.mix(hash, 10, currentMove.isCheck() ? currentMove.getOppositeColor().ordinal() : -1);
+        }
+        hash = Zobrist.mix(hash, 11, targetRow);
+        return Zobrist.mix(hash, 12, targetColumn);
+    }
+
     public void addPiece(final Piece piece, final int row, final int column) {
-        pieceGrid[row][column] = piece;
+        setPiece(row, column, piece);
         piece.setXY(game, column, row);
+        revision++;
     }
 
     public void markTargetSquare(final Move move) {
         targetRow = move.toRow;
         targetColumn = move.toColumn;
+        revision++;
     }
 
     public int getWidth() {
@@ -77,6 +159,7 @@ public class Position {
     }
 
     public void startMoving(final Move move) {
+        revision++;
         if (move.isAmbiguous() || move.isPlace()) {
             LOG.info(move.toString());
             currentMove = Move.from(move);
@@ -92,7 +175,7 @@ public class Position {
             LOG.info(move.toString());
             currentMove = Move.from(move);
             // calculate frame steps
-            pieceGrid[move.fromRow][move.fromColumn].setTargetXYAndSteps(game, move.toColumn, move.toRow);
+            startMoving(pieceGrid[move.fromRow][move.fromColumn], move.toColumn, move.toRow);
             handleCastling(move);
         }
     }
@@ -104,7 +187,7 @@ public class Position {
     }
 
     public boolean matchesPieceInCheck(final int row, final int column) {
-        final Type type = game.isVariant(Constants.KNIGHTMATE) ? Type.KNIGHT : Type.KING;
+        final Type type = game.getVariant().getRoyalType();
         return currentMove != null &&
                 currentMove.isCheck() &&
                 pieceGrid[row][column] != null &&
@@ -112,49 +195,48 @@ public class Position {
                 pieceGrid[row][column].hasColor(currentMove.getOppositeColor());
     }
 
+    private void setPiece(final int row, final int column, final Piece piece) {
+        // every change of the board goes through here to keep the bitboard and the hash in sync
+        final int square = attackTable.getSquare(row, column);
+        pieceHash ^= Zobrist.pieceKey(square, pieceGrid[row][column]) ^ Zobrist.pieceKey(square, piece);
+        pieceGrid[row][column] = piece;
+        bitboard.setPiece(row, column, piece);
+    }
+
     public boolean matchesHole(final int row, final int column) {
         return pieceGrid[row][column] != null && pieceGrid[row][column].isHole();
     }
 
     public boolean isMoving() {
-        boolean moving = false;
-        for (int i = 0; i < game.getHeight(); i++) {
-            for (int j = 0; j < game.getWidth(); j++) {
-                if (pieceGrid[i][j] != null && pieceGrid[i][j].isMoving()) {
-                    moving = true;
-                    break;
-                }
-            }
-        }
-        for (final Color color : Color.values()) {
-            for (final Piece piece : capturedPieces.get(color)) {
-                if (piece.isMoving()) {
-                    moving = true;
-                    break;
-                }
-            }
-        }
-        return moving;
+        return !movingPieces.isEmpty();
     }
 
     public void doMoveStep() {
-        for (int i = 0; i < game.getHeight(); i++) {
-            for (int j = 0; j < game.getWidth(); j++) {
-                if (pieceGrid[i][j] != null && pieceGrid[i][j].isMoving()) {
-                    pieceGrid[i][j].doMoveStep();
-                }
+        final Iterator<Piece> iterator = movingPieces.iterator();
+        while (iterator.hasNext()) {
+            final Piece piece = iterator.next();
+            piece.doMoveStep();
+            if (!piece.isMoving()) {
+                // the piece has arrived, so it is a resting piece from now on
+                iterator.remove();
+                revision++;
             }
         }
-        for (final Color color : Color.values()) {
-            for (final Piece piece : capturedPieces.get(color)) {
-                if (piece.isMoving()) {
-                    piece.doMoveStep();
-                }
-            }
+    }
+
+    private void startMoving(final Piece piece, final int toColumn, final int toRow) {
+        piece.setTargetXYAndSteps(game, toColumn, toRow);
+        addMovingPiece(piece);
+    }
+
+    private void addMovingPiece(final Piece piece) {
+        if (piece.isMoving() && !movingPieces.contains(piece)) {
+            movingPieces.add(piece);
         }
     }
 
     public void stopMoving() {
+        revision++;
         if (currentMove != null && !currentMove.isAmbiguous()) {
             handleStopMoving();
         }
@@ -163,63 +245,92 @@ public class Position {
         }
     }
 
-    @SuppressWarnings("PMD.NullAssignment")
     private void handleStopMoving() {
         if (currentMove.isCheck()) {
-            checkCounter.put(currentMove.getColor(), checkCounter.get(currentMove.getColor()) + 1);
+            checkCounter[currentMove.getColor().ordinal()]++;
         }
         final boolean targetSquareEmpty = pieceGrid[currentMove.toRow][currentMove.toColumn] == null;
         if (!targetSquareEmpty && currentMove.isCapture() &&
                 !pieceGrid[currentMove.toRow][currentMove.toColumn].hasType(Type.ICE_CUBE)) {
             capturePiece(pieceGrid[currentMove.toRow][currentMove.toColumn]);
         }
-        pieceGrid[currentMove.toRow][currentMove.toColumn] = pieceGrid[currentMove.fromRow][currentMove.fromColumn];
+        final Piece movedPiece = pieceGrid[currentMove.fromRow][currentMove.fromColumn];
+        // the hash removes the piece with its current type, so leave the source square before promoting
+        setPiece(currentMove.fromRow, currentMove.fromColumn, null);
         // handle promoting
         if (currentMove.getPromoteType() != null) {
-            pieceGrid[currentMove.toRow][currentMove.toColumn].promoteTo(currentMove.getPromoteType());
+            movedPiece.promoteTo(currentMove.getPromoteType());
         }
+        setPiece(currentMove.toRow, currentMove.toColumn, movedPiece);
         // handle en passant capture
         if (currentMove.isCapture() && currentMove.isPawn() && targetSquareEmpty) {
             capturePiece(pieceGrid[currentMove.fromRow][currentMove.toColumn]);
-            pieceGrid[currentMove.fromRow][currentMove.toColumn] = null;
+            setPiece(currentMove.fromRow, currentMove.toColumn, null);
         }
-        pieceGrid[currentMove.fromRow][currentMove.fromColumn] = null;
         handleVariants();
         currentMove.clearSquares();
     }
 
-    private void setVisibleGrid(final boolean visible) {
+    public void resetVisibleGrid() {
+        revision++;
         for (int row = 0; row < game.getHeight(); row++) {
             for (int column = 0; column < game.getWidth(); column++) {
-                visibleGrid[row][column] = visible;
+                updateReach(row, column);
             }
         }
+        applyReach();
     }
 
-    public void resetVisibleGrid() {
-        setVisibleGrid(false);
-        final Color color = game.hasOppositeOrientation() ? Color.BLACK : Color.WHITE;
-        for (int row = 0; row < game.getHeight(); row++) {
-            for (int column = 0; column < game.getWidth(); column++) {
-                final Piece piece = pieceGrid[row][column];
-                if (piece != null && piece.hasColor(color)) {
-                    visibleGrid[row][column] = true;
-                    calculatePieceReach(piece, row, column);
-                }
+    void updateVisibleGrid() {
+        revision++;
+        // only the pieces on changed squares and the pieces whose reach contains a changed square can see anything else now
+        final long changedLow = bitboard.getChangedBits(0);
+        final long changedHigh = bitboard.getChangedBits(1);
+        for (int square = 0; square < game.getWidth() * game.getHeight(); square++) {
+            if (bitboard.isChanged(square) || (reach[square * 2] & changedLow) != 0 || (reach[square * 2 + 1] & changedHigh) != 0) {
+                updateReach(attackTable.getRow(square), attackTable.getColumn(square));
             }
         }
+        applyReach();
+    }
+
+    private void updateReach(final int row, final int column) {
+        final int index = attackTable.getSquare(row, column) * 2;
+        reach[index] = 0;
+        reach[index + 1] = 0;
+        final Color color = game.hasOppositeOrientation() ? Color.BLACK : Color.WHITE;
+        final Piece piece = pieceGrid[row][column];
+        if (piece != null && piece.hasColor(color)) {
+            addReach(index, row, column);
+            calculatePieceReach(piece, row, column, index);
+        }
+    }
+
+    private void addReach(final int index, final int row, final int column) {
+        final int square = attackTable.getSquare(row, column);
+        reach[index + (square >> 6)] |= 1L << square;
+    }
+
+    private void applyReach() {
+        long low = 0;
+        long high = 0;
+        for (int index = 0; index < reach.length; index += 2) {
+            low |= reach[index];
+            high |= reach[index + 1];
+        }
+        bitboard.setVisibleBits(low, high);
+        bitboard.clearChanged();
     }
 
     public void capturePiece(final Piece piece) {
         final Piece capturedPiece = Piece.from(piece);
-        if (game.isVariant(Constants.LOOP)) {
-            capturedPiece.setOppositeColor();
-        }
+        game.getVariant().handleCapturedPiece(capturedPiece);
         capturedPieces.get(piece.getColor()).add(capturedPiece);
         resetCapturePiecePositions(piece.getColor());
     }
 
     public void resetCapturePiecePositions(final Color color) {
+        revision++;
         int index = 0;
         for (final Piece piece : capturedPieces.get(color)) {
             piece.setXY(game, color, index);
@@ -228,6 +339,7 @@ public class Position {
     }
 
     public void removePieceFromCaptured(final Color color, final Piece piece) {
+        revision++;
         capturedPieces.get(color).remove(piece);
     }
 
@@ -241,7 +353,8 @@ public class Position {
 
     public void finishGame() {
         this.finished = true;
-        setVisibleGrid(true);
+        bitboard.setAllVisible(true);
+        revision++;
     }
 
     public boolean isFinished() {
@@ -253,24 +366,20 @@ public class Position {
     }
 
     public String getGameStatus() {
-        return game.isVariant(Constants.THREE_CHECKS) ?
-        "Checks: " + checkCounter.get(Color.WHITE) + "/" + checkCounter.get(Color.BLACK) :
+        return game.isVariant(Variant.THREE_CHECKS) ?
+        "Checks: " + checkCounter[Color.WHITE.ordinal()] + "/" + checkCounter[Color.BLACK.ordinal()] :
         "";
     }
 
     public String getResult() {
-        String variant = game.getVariant();
-        if (variant == null) {
-            variant = "";
-        }
-        String result = switch (variant) {
-            case Constants.EXTINCTION -> getExtinctionResult();
-            case Constants.THREE_CHECKS -> getThreeChecksResult();
-            case Constants.ANTI -> getAntiResult();
-            case Constants.ATOMIC -> getAtomicResult();
-            case Constants.DARK -> getDarkResult();
-            case Constants.RACING_KINGS -> getRacingKingsResult();
-            case Constants.MASSACRE -> getMassacreResult();
+        String result = switch (game.getVariant()) {
+            case EXTINCTION -> getExtinctionResult();
+            case THREE_CHECKS -> getThreeChecksResult();
+            case ANTI -> getAntiResult();
+            case ATOMIC -> getAtomicResult();
+            case DARK -> getDarkResult();
+            case RACING_KINGS -> getRacingKingsResult();
+            case MASSACRE -> getMassacreResult();
             default -> "";
         };
         if (StringUtils.isBlank(result)) {
@@ -300,7 +409,7 @@ public class Position {
                 moveNumber = currentMove.getMoveNumber();
             }
             prefix = currentMove.getMoveNumber() + ". " + (currentMove.isBlack() ? "... " : "");
-            if (game.isVariant(Constants.DARK) &&
+            if (game.isVariant(Variant.DARK) &&
                     (game.hasOppositeOrientation() && currentMove.isWhite() ||
                             !game.hasOppositeOrientation() && currentMove.isBlack())) {
                 suffix = "?";
@@ -319,24 +428,11 @@ public class Position {
 
     private String getExtinctionResult() {
         String result = "";
-        final Set<Type> whiteTypes = EnumSet.noneOf(Type.class);
-        final Set<Type> blackTypes = EnumSet.noneOf(Type.class);
-        for (int i = 0; i < game.getHeight(); i++) {
-            for (int j = 0; j < game.getWidth(); j++) {
-                if (pieceGrid[i][j] != null) {
-                    if (pieceGrid[i][j].hasColor(Color.WHITE)) {
-                        whiteTypes.add(pieceGrid[i][j].getType());
-                    } else if (pieceGrid[i][j].hasColor(Color.BLACK)) {
-                        blackTypes.add(pieceGrid[i][j].getType());
-                    }
-                }
-            }
-        }
         for (final Type type : Type.values()) {
-            if (!whiteTypes.contains(type)) {
+            if (!bitboard.contains(Color.WHITE, type)) {
                 result = "White lost all " + type.name().toLowerCase(Locale.ENGLISH) + "s";
             }
-            if (!blackTypes.contains(type)) {
+            if (!bitboard.contains(Color.BLACK, type)) {
                 result = "Black lost all " + type.name().toLowerCase(Locale.ENGLISH) + "s";
             }
         }
@@ -345,7 +441,7 @@ public class Position {
 
     private String getThreeChecksResult() {
         String result = "";
-        if (checkCounter.get(Color.WHITE) == 3 || checkCounter.get(Color.BLACK) == 3) {
+        if (checkCounter[Color.WHITE.ordinal()] == 3 || checkCounter[Color.BLACK.ordinal()] == 3) {
             result = "Third check";
         }
         return result;
@@ -353,23 +449,10 @@ public class Position {
 
     private String getAntiResult() {
         String result = "";
-        int whiteCounter = 0;
-        int blackCounter = 0;
-        for (int i = 0; i < game.getHeight(); i++) {
-            for (int j = 0; j < game.getWidth(); j++) {
-                if (pieceGrid[i][j] != null) {
-                    if (pieceGrid[i][j].isWhite()) {
-                        whiteCounter++;
-                    } else {
-                        blackCounter++;
-                    }
-                }
-            }
-        }
-        if (whiteCounter == 0) {
+        if (bitboard.count(Color.WHITE) == 0) {
             result = "White lost all pieces";
         }
-        if (blackCounter == 0) {
+        if (bitboard.count(Color.BLACK) == 0) {
             result = "Black lost all pieces";
         }
         return result;
@@ -377,23 +460,10 @@ public class Position {
 
     private String getAtomicResult() {
         String result = "";
-        boolean whiteKingFound = false;
-        boolean blackKingFound = false;
-        for (int i = 0; i < game.getHeight(); i++) {
-            for (int j = 0; j < game.getWidth(); j++) {
-                if (pieceGrid[i][j] != null && pieceGrid[i][j].hasType(Type.KING)) {
-                    if (pieceGrid[i][j].isWhite()) {
-                        whiteKingFound = true;
-                    } else {
-                        blackKingFound = true;
-                    }
-                }
-            }
-        }
-        if (!whiteKingFound) {
+        if (!bitboard.contains(Color.WHITE, Type.KING)) {
             result = "White king exploded";
         }
-        if (!blackKingFound) {
+        if (!bitboard.contains(Color.BLACK, Type.KING)) {
             result = "Black king exploded";
         }
         return result;
@@ -401,23 +471,10 @@ public class Position {
 
     private String getDarkResult() {
         String result = "";
-        boolean whiteKingFound = false;
-        boolean blackKingFound = false;
-        for (int i = 0; i < game.getHeight(); i++) {
-            for (int j = 0; j < game.getWidth(); j++) {
-                if (pieceGrid[i][j] != null && pieceGrid[i][j].hasType(Type.KING)) {
-                    if (pieceGrid[i][j].isWhite()) {
-                        whiteKingFound = true;
-                    } else {
-                        blackKingFound = true;
-                    }
-                }
-            }
-        }
-        if (!whiteKingFound) {
+        if (!bitboard.contains(Color.WHITE, Type.KING)) {
             result = "White king captured";
         }
-        if (!blackKingFound) {
+        if (!bitboard.contains(Color.BLACK, Type.KING)) {
             result = "Black king captured";
         }
         return result;
@@ -453,12 +510,11 @@ public class Position {
         return "No more moves";
     }
 
-    @SuppressWarnings("PMD.NullAssignment")
     private void handleCastling(final Move move) {
         // handle castling
         if (move.isCastlingType(game.getVariant())) {
             Transition rook = new Transition(move.fromRow, -1, move.toRow, -1);
-            if ((game.isVariant(Constants.FISCHER_RANDOM) || game.isVariant(Constants.CAPABLANCA_RANDOM)) &&
+            if (game.getVariant().hasRandomCastling() &&
                     (move.isCastlingShort() || move.isCastlingLong())) {
                 calculateKingPosition(move);
             }
@@ -468,9 +524,9 @@ public class Position {
                 rook = calculateShortCastling(rook, move);
             }
             if (rook.fromColumn() >= 0) {
-                pieceGrid[rook.toRow()][rook.toColumn()] = pieceGrid[rook.fromRow()][rook.fromColumn()];
-                pieceGrid[rook.toRow()][rook.toColumn()].setTargetXYAndSteps(game, rook.toColumn(), rook.toRow());
-                pieceGrid[rook.fromRow()][rook.fromColumn()] = null;
+                setPiece(rook.toRow(), rook.toColumn(), pieceGrid[rook.fromRow()][rook.fromColumn()]);
+                startMoving(pieceGrid[rook.toRow()][rook.toColumn()], rook.toColumn(), rook.toRow());
+                setPiece(rook.fromRow(), rook.fromColumn(), null);
             }
         }
     }
@@ -487,8 +543,8 @@ public class Position {
 
     private Transition calculateLongCastling(final Transition rook, final Move move) {
         // O-O-O
-        int rookFromColumn = game.isVariant(Constants.EMBASSY) || game.isVariant(Constants.JANUS) ? game.getWidth() - 1 : 0;
-        if (game.isVariant(Constants.FISCHER_RANDOM) || game.isVariant(Constants.CAPABLANCA_RANDOM)) {
+        int rookFromColumn = game.getVariant().getLongCastlingRookColumn(game.getWidth());
+        if (game.getVariant().hasRandomCastling()) {
             // find the rook column
             for (int column = 0; column < move.fromColumn; column++) {
                 if (pieceGrid[move.fromRow][column] != null &&
@@ -497,17 +553,14 @@ public class Position {
                 }
             }
         }
-        int rookToColumn = game.isVariant(Constants.EMBASSY) ? 6 : 3;
-        if (game.isVariant(Constants.JANUS)) {
-            rookToColumn = 7;
-        }
+        final int rookToColumn = game.getVariant().getLongCastlingRookTargetColumn();
         return new Transition(rook.fromRow(), rookFromColumn, rook.toRow(), rookToColumn);
     }
 
     private Transition calculateShortCastling(final Transition rook, final Move move) {
         // O-O
-        int rookFromColumn = game.isVariant(Constants.EMBASSY) || game.isVariant(Constants.JANUS) ? 0 : game.getWidth() - 1;
-        if (game.isVariant(Constants.FISCHER_RANDOM) || game.isVariant(Constants.CAPABLANCA_RANDOM)) {
+        int rookFromColumn = game.getVariant().getShortCastlingRookColumn(game.getWidth());
+        if (game.getVariant().hasRandomCastling()) {
             // find the rook column
             for (int column = move.fromColumn + 1; column < game.getWidth(); column++) {
                 if (pieceGrid[move.fromRow][column] != null &&
@@ -516,7 +569,7 @@ public class Position {
                 }
             }
         }
-        final int rookToColumn = game.isVariant(Constants.EMBASSY) || game.isVariant(Constants.JANUS) ? 2 : 5;
+        final int rookToColumn = game.getVariant().getShortCastlingRookTargetColumn();
         return new Transition(rook.fromRow(), rookFromColumn, rook.toRow(), rookToColumn);
     }
 
@@ -524,7 +577,7 @@ public class Position {
         if (move.isPlace()) {
             for (final Piece piece : capturedPieces.get(currentMove.getOppositeColor())) {
                 if (piece.hasType(currentMove.getType())) {
-                    piece.setTargetXYAndSteps(game, currentMove.toColumn, currentMove.toRow);
+                    startMoving(piece, currentMove.toColumn, currentMove.toRow);
                 }
             }
         }
@@ -541,42 +594,31 @@ public class Position {
     }
 
     private void handleVariants() {
-        if (game.isVariant(Constants.ATOMIC) && currentMove.isCapture()) {
-            handleAtomicExplosion();
-        }
-        if (game.isVariant(Constants.CHESHIRE_CAT)) {
-            pieceGrid[currentMove.fromRow][currentMove.fromColumn] = new Piece(Type.HOLE);
-        }
-        if (game.isVariant(Constants.ICE_AGE) &&
-                currentMove.getMoveNumber() % 20 == 0 &&
-                currentMove.isBlack()) {
-            handleIceAgeEvent();
-        }
-        if (game.isVariant(Constants.DARK)) {
-            // recalculate visible squares
-            resetVisibleGrid();
-        }
+        game.getVariant().afterMove(this, currentMove);
     }
 
-    @SuppressWarnings("PMD.NullAssignment")
-    private void handleAtomicExplosion() {
+    void addHole(final int row, final int column) {
+        setPiece(row, column, new Piece(Type.HOLE));
+    }
+
+    void handleAtomicExplosion() {
         // handle exploded pieces
         // TODO: maybe some simple animation?
-        for (final int[] array : Type.KING.getMoveDirectionArray()) {
-            final int explodeRow = currentMove.toRow + array[0];
-            final int explodeColumn = currentMove.toColumn + array[1];
+        for (int direction = 0; direction < Type.KING.getDirectionCount(); direction++) {
+            final int explodeRow = currentMove.toRow + Type.KING.getRowStep(direction);
+            final int explodeColumn = currentMove.toColumn + Type.KING.getColumnStep(direction);
             if (isValidSquare(explodeRow, explodeColumn) &&
                     pieceGrid[explodeRow][explodeColumn] != null &&
                     !pieceGrid[explodeRow][explodeColumn].hasType(Type.PAWN)) {
                 capturePiece(pieceGrid[explodeRow][explodeColumn]);
-                pieceGrid[explodeRow][explodeColumn] = null;
+                setPiece(explodeRow, explodeColumn, null);
             }
         }
         capturePiece(pieceGrid[currentMove.toRow][currentMove.toColumn]);
-        pieceGrid[currentMove.toRow][currentMove.toColumn] = null;
+        setPiece(currentMove.toRow, currentMove.toColumn, null);
     }
 
-    private void handleIceAgeEvent() {
+    void handleIceAgeEvent() {
         // after every 20th move, perform the ice age
         // add ice cubes to empty squares not orthogonally surrounded by pieces
         for (int row = 0; row < game.getHeight(); row++) {
@@ -597,11 +639,13 @@ public class Position {
     }
 
     private void addSurroundingIceCubes(final int row, final int column) {
-        for (final int[] array : Type.KING.getMoveDirectionArray()) {
+        for (int direction = 0; direction < Type.KING.getDirectionCount(); direction++) {
+            final int rowStep = Type.KING.getRowStep(direction);
+            final int columnStep = Type.KING.getColumnStep(direction);
             if (pieceGrid[row][column] == null &&
-                    (array[0] == 0 || array[1] == 0)) {
-                final int testRow = row + array[0];
-                final int testColumn = column + array[1];
+                    (rowStep == 0 || columnStep == 0)) {
+                final int testRow = row + rowStep;
+                final int testColumn = column + columnStep;
                 if (isValidSquare(testRow, testColumn) &&
                         !isPlayablePiece(pieceGrid[testRow][testColumn])) {
                     addPiece(new Piece(Type.ICE_CUBE), row, column);
@@ -612,9 +656,9 @@ public class Position {
 
     private void freezePiece(final int row, final int column) {
         boolean connectedPieceFound = false;
-        for (final int[] array : Type.KING.getMoveDirectionArray()) {
-            final int testRow = row + array[0];
-            final int testColumn = column + array[1];
+        for (int direction = 0; direction < Type.KING.getDirectionCount(); direction++) {
+            final int testRow = row + Type.KING.getRowStep(direction);
+            final int testColumn = column + Type.KING.getColumnStep(direction);
             if (isValidSquare(testRow, testColumn) &&
                     isPlayablePiece(pieceGrid[testRow][testColumn])) {
                 connectedPieceFound = true;
@@ -626,36 +670,28 @@ public class Position {
         }
     }
 
-    private void calculatePieceReach(final Piece piece, final int row, final int column) {
+    private void calculatePieceReach(final Piece piece, final int row, final int column, final int index) {
         if (piece.isPawn()) {
             final int direction = piece.isWhite() ? 1 : -1;
             final int startRow = piece.isWhite() ? 1 : 6;
-            visibleGrid[row + direction][column] = true;
+            addReach(index, row + direction, column);
             if (row == startRow && !isPlayablePiece(pieceGrid[row + direction][column])) {
-                visibleGrid[row + direction + direction][column] = true;
+                addReach(index, row + direction + direction, column);
             }
             if (isValidSquare(row + direction, column - 1)) {
-                visibleGrid[row + direction][column - 1] = true;
+                addReach(index, row + direction, column - 1);
             }
             if (isValidSquare(row + direction, column + 1)) {
-                visibleGrid[row + direction][column + 1] = true;
+                addReach(index, row + direction, column + 1);
             }
         } else {
-            final int[][] moveDirectionArray = piece.getMoveDirectionArray();
-            final int maxMoveDistance = piece.getMaxMoveDistance();
-            for (final int[] array : moveDirectionArray) {
+            for (final int[] ray : attackTable.getRays(piece.getType(), row, column)) {
                 boolean directionSearch = true;
-                for (int distance = 1; distance <= maxMoveDistance && directionSearch; distance++) {
-                    final int testRow = row + array[0] * distance;
-                    final int testColumn = column + array[1] * distance;
-                    if (isValidSquare(testRow, testColumn)) {
-                        visibleGrid[testRow][testColumn] = true;
-                        if (isPlayablePiece(pieceGrid[testRow][testColumn])) {
-                            directionSearch = false;
-                        }
-                    } else {
-                        directionSearch = false;
-                    }
+                for (int distance = 0; distance < ray.length && directionSearch; distance++) {
+                    final int testRow = attackTable.getRow(ray[distance]);
+                    final int testColumn = attackTable.getColumn(ray[distance]);
+                    addReach(index, testRow, testColumn);
+                    directionSearch = !isPlayablePiece(pieceGrid[testRow][testColumn]);
                 }
             }
         }
@@ -682,7 +718,7 @@ public class Position {
     }
 
     private void addSourceSquareToMove(final Move move) {
-        if (move.isPawn() && game.isVariant(Constants.LEGAN)) {
+        if (move.isPawn() && game.isVariant(Variant.LEGAN)) {
             addSourceSquareLeganPawn(move);
         } else if (move.isPawn() && !move.isRelayed()) {
             addSourceSquareNormalPawn(move);
@@ -719,29 +755,24 @@ public class Position {
 
     private void addSourceSquareForPiece(final Move move) {
         final Color color = move.getColor();
-        final int[][] moveDirectionArray = move.getMoveDirectionArray();
-        int maxMoveDistance = move.getMaxMoveDistance();
-        if (game.isVariant(Constants.CHESHIRE_CAT) && move.isKing() && !kingMoved.get(color)) {
+        Type rayType = move.getType();
+        if (game.isVariant(Variant.CHESHIRE_CAT) && move.isKing() && !kingMoved[color.ordinal()]) {
             // Cheshire Cat king can make the first move as a queen
-            maxMoveDistance = Type.QUEEN.getMaxMoveDistance();
-            kingMoved.put(color, true);
+            rayType = Type.QUEEN;
+            kingMoved[color.ordinal()] = true;
         }
-        for (final int[] array : moveDirectionArray) {
-            if (move.isKnightLikeType()) {
-                // knight-like moves always have a fixed distance
-                maxMoveDistance = Math.abs(array[0]) == 2 || Math.abs(array[1]) == 2 ? 1 : move.getMaxMoveDistance();
-            }
-            findSourcePiece(move, array, maxMoveDistance);
+        // walk the rays from the target square, the first piece of the right type on a ray is the candidate
+        for (final int[] ray : attackTable.getRays(rayType, move.toRow, move.toColumn)) {
+            findSourcePiece(move, ray);
         }
     }
 
-    private void findSourcePiece(final Move move, final int[] array, final int maxMoveDistance) {
+    private void findSourcePiece(final Move move, final int[] ray) {
         boolean directionSearch = true;
-        for (int distance = 1; distance <= maxMoveDistance && directionSearch; distance++) {
-            final int testRow = move.toRow + array[0] * distance;
-            final int testColumn = move.toColumn + array[1] * distance;
-            if (isValidSquare(testRow, testColumn) &&
-                (move.fromRow == -1 || move.fromRow == testRow) &&
+        for (int index = 0; index < ray.length && directionSearch; index++) {
+            final int testRow = attackTable.getRow(ray[index]);
+            final int testColumn = attackTable.getColumn(ray[index]);
+            if ((move.fromRow == -1 || move.fromRow == testRow) &&
                 (move.fromColumn == -1 || move.fromColumn == testColumn) &&
                 pieceGrid[testRow][testColumn] != null &&
                 !pieceGrid[testRow][testColumn].hasType(Type.HOLE)) {
@@ -771,14 +802,11 @@ public class Position {
         if (move.isRelayed()) {
             // find relayed knight
             pieceFound = false;
-            for (final int[] knightArray : Type.KNIGHT.getMoveDirectionArray()) {
-                final int knightRow = testRow + knightArray[0];
-                final int knightColumn = testColumn + knightArray[1];
-                if (isValidSquare(knightRow, knightColumn) &&
-                        pieceGrid[knightRow][knightColumn] != null &&
-                        pieceGrid[knightRow][knightColumn].hasType(Type.KNIGHT) &&
-                        pieceGrid[knightRow][knightColumn].hasColor(move.getColor())) {
-                    pieceFound = true;
+            for (final int[] ray : attackTable.getRays(Type.KNIGHT, testRow, testColumn)) {
+                for (final int square : ray) {
+                    if (bitboard.hasPiece(attackTable.getRow(square), attackTable.getColumn(square), move.getColor(), Type.KNIGHT)) {
+                        pieceFound = true;
+                    }
                 }
             }
         }
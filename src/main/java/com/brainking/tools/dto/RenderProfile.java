@@ -0,0 +1,73 @@
+package com.brainking.tools.dto;
+
+import java.awt.Font;
+
+import com.brainking.tools.utils.Constants;
+
+public enum RenderProfile {
+
+    // half the resolution, half the frame rate and short moves, a fraction of the cost of a full render
+    PREVIEW(1, 2, 12, 10),
+    // the full 1080x1080 video at 25 fps
+    SOCIAL(1, 1, 25, Constants.MOVE_STEPS),
+    // 60 fps, the moves take as long as at 25 fps, only smoother
+    HQ(1, 1, 60, 72);
+
+    // the frame counts in Constants are given for this frame rate
+    private static final int DEFAULT_FRAME_RATE = 25;
+
+    private final int scaleNumerator;
+    private final int scaleDenominator;
+    private final int frameRate;
+    private final int moveSteps;
+
+    RenderProfile(final int scaleNumerator, final int scaleDenominator, final int frameRate, final int moveSteps) {
+        this.scaleNumerator = scaleNumerator;
+        this.scaleDenominator = scaleDenominator;
+        this.frameRate = frameRate;
+        this.moveSteps = moveSteps;
+    }
+
+    public static RenderProfile fromName(final String name, final RenderProfile defaultProfile) {
+        RenderProfile result = defaultProfile;
+        if (name != null) {
+            for (final RenderProfile profile : values()) {
+                if (profile.name().equalsIgnoreCase(name.trim())) {
+                    result = profile;
+                }
+            }
+        }
+        return result;
+    }
+
+    public int scale(final int pixels) {
+        // all sizes and offsets of the frame are given for 1080x1080
+        return pixels * scaleNumerator / scaleDenominator;
+    }
+
+    public Font scale(final Font font) {
+        return scaleNumerator == scaleDenominator ? font : font.deriveFont(font.getSize2D() * scaleNumerator / scaleDenominator);
+    }
+
+    public int getVideoWidth() {
+        return scale(Constants.VIDEO_WIDTH);
+    }
+
+    public int getVideoHeight() {
+        return scale(Constants.VIDEO_HEIGHT);
+    }
+
+    public int getFrameRate() {
+        return frameRate;
+    }
+
+    public int getMoveSteps() {
+        return moveSteps;
+    }
+
+    public int getFrames(final int frames) {
+        // a hold of the given frames at 25 fps, so it lasts equally long at any frame rate
+        return Math.max(1, frames * frameRate / DEFAULT_FRAME_RATE);
+    }
+
+}
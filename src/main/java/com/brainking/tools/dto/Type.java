@@ -1,169 +1,109 @@
 package com.brainking.tools.dto;
 
-import java.util.Arrays;
-
 public enum Type {
 
-    KING("K", true, true) {
-        @Override
-        public int[][] getMoveDirectionArray() {
-            return Arrays.copyOf(KING_MOVE_DIRECTION, KING_MOVE_DIRECTION.length);
-        }
-
+    KING("K", true, true, Directions.KING) {
         @Override
         public int getMaxMoveDistance() {
             return 1;
         }
     },
-    QUEEN("Q", true, true) {
-        @Override
-        public int[][] getMoveDirectionArray() {
-            return Arrays.copyOf(QUEEN_MOVE_DIRECTION, QUEEN_MOVE_DIRECTION.length);
-        }
-
+    QUEEN("Q", true, true, Directions.QUEEN) {
         @Override
         public int getMaxMoveDistance() {
             return 7;
         }
     },
-    ROOK("R", true, true) {
-        @Override
-        public int[][] getMoveDirectionArray() {
-            return Arrays.copyOf(ROOK_MOVE_DIRECTION, ROOK_MOVE_DIRECTION.length);
-        }
-
+    ROOK("R", true, true, Directions.ROOK) {
         @Override
         public int getMaxMoveDistance() {
             return 7;
         }
     },
-    BISHOP("B", true, true) {
-        @Override
-        public int[][] getMoveDirectionArray() {
-            return Arrays.copyOf(BISHOP_MOVE_DIRECTION, BISHOP_MOVE_DIRECTION.length);
-        }
-
+    BISHOP("B", true, true, Directions.BISHOP) {
         @Override
         public int getMaxMoveDistance() {
             return 7;
         }
     },
-    KNIGHT("N", true, true) {
-        @Override
-        public int[][] getMoveDirectionArray() {
-            return Arrays.copyOf(KNIGHT_MOVE_DIRECTION, KNIGHT_MOVE_DIRECTION.length);
-        }
-
+    KNIGHT("N", true, true, Directions.KNIGHT) {
         @Override
         public int getMaxMoveDistance() {
             return 1;
         }
     },
-    PAWN("p", true, true) {
-        @Override
-        public int[][] getMoveDirectionArray() {
-            return new int[0][];  // special rules
-        }
-
+    PAWN("p", true, true, Directions.NONE) {
         @Override
         public int getMaxMoveDistance() {
             return 0;  // special rules
         }
     },
-    ARCHBISHOP("A", true, true) {
-        @Override
-        public int[][] getMoveDirectionArray() {
-            return Arrays.copyOf(ARCHBISHOP_MOVE_DIRECTION, ARCHBISHOP_MOVE_DIRECTION.length);
-        }
-
+    ARCHBISHOP("A", true, true, Directions.ARCHBISHOP) {
         @Override
         public int getMaxMoveDistance() {
             return 7;
         }
     },
-    CHANCELLOR("C", true, true) {
-        @Override
-        public int[][] getMoveDirectionArray() {
-            return Arrays.copyOf(CHANCELLOR_MOVE_DIRECTION, CHANCELLOR_MOVE_DIRECTION.length);
-        }
-
+    CHANCELLOR("C", true, true, Directions.CHANCELLOR) {
         @Override
         public int getMaxMoveDistance() {
             return 7;
         }
     },
-    JANUS("J", true, true) {
-        @Override
-        public int[][] getMoveDirectionArray() {
-            return Arrays.copyOf(ARCHBISHOP_MOVE_DIRECTION, ARCHBISHOP_MOVE_DIRECTION.length);
-        }
-
+    JANUS("J", true, true, Directions.ARCHBISHOP) {
         @Override
         public int getMaxMoveDistance() {
             return 7;
         }
     },
-    HOLE("h", false, false) {
-        @Override
-        public int[][] getMoveDirectionArray() {
-            return new int[0][];
-        }
-
+    HOLE("h", false, false, Directions.NONE) {
         @Override
         public int getMaxMoveDistance() {
             return 0;
         }
     },
-    ICE_CUBE("i", false, true) {
-        @Override
-        public int[][] getMoveDirectionArray() {
-            return new int[0][];
-        }
-
+    ICE_CUBE("i", false, true, Directions.NONE) {
         @Override
         public int getMaxMoveDistance() {
             return 0;
         }
     };
 
-    private static final int[][] KING_MOVE_DIRECTION = {
-            {1, 1}, {1, 0}, {1, -1}, {0, 1}, {0, -1}, {-1, 1}, {-1, 0}, {-1, -1}
-    };
+    // piece letters of both cases to types, indexed by the char value
+    private static final Type[] BY_CODE = new Type[128];
+    // Embassy FEN uses M for the chancellor and C for the archbishop
+    private static final Type[] BY_EMBASSY_FEN_CODE = new Type[128];
 
-    private static final int[][] QUEEN_MOVE_DIRECTION = {
-            {1, 1}, {1, 0}, {1, -1}, {0, 1}, {0, -1}, {-1, 1}, {-1, 0}, {-1, -1}
-    };
-
-    private static final int[][] ROOK_MOVE_DIRECTION = {
-            {1, 0}, {0, 1}, {0, -1}, {-1, 0}
-    };
-
-    private static final int[][] BISHOP_MOVE_DIRECTION = {
-            {1, 1}, {1, -1}, {-1, 1}, {-1, -1}
-    };
-
-    private static final int[][] KNIGHT_MOVE_DIRECTION = {
-            {1, 2}, {1, -2}, {-1, 2}, {-1, -2}, {2, 1}, {2, -1}, {-2, 1}, {-2, -1}
-    };
-
-    private static final int[][] ARCHBISHOP_MOVE_DIRECTION = {
-            {1, 2}, {1, -2}, {-1, 2}, {-1, -2}, {2, 1}, {2, -1}, {-2, 1}, {-2, -1},
-            {1, 1}, {1, -1}, {-1, 1}, {-1, -1}
-    };
-
-    private static final int[][] CHANCELLOR_MOVE_DIRECTION = {
-            {1, 2}, {1, -2}, {-1, 2}, {-1, -2}, {2, 1}, {2, -1}, {-2, 1}, {-2, -1},
-            {1, 0}, {0, 1}, {0, -1}, {-1, 0}
-    };
+    static {
+        for (final Type value : values()) {
+            final char code = value.code.charAt(0);
+            BY_CODE[Character.toLowerCase(code)] = value;
+            BY_CODE[Character.toUpperCase(code)] = value;
+        }
+        System.arraycopy(BY_CODE, 0, BY_EMBASSY_FEN_CODE, 0, BY_CODE.length);
+        BY_EMBASSY_FEN_CODE['M'] = CHANCELLOR;
+        BY_EMBASSY_FEN_CODE['m'] = CHANCELLOR;
+        BY_EMBASSY_FEN_CODE['C'] = ARCHBISHOP;
+        BY_EMBASSY_FEN_CODE['c'] = ARCHBISHOP;
+    }
 
     private final String code;
     private final boolean playable;
     private final boolean visible;
+    // direction i moves by rowSteps[i] rows and columnSteps[i] columns, read-only so nothing is copied per call
+    private final int[] rowSteps;
+    private final int[] columnSteps;
 
-    Type(final String code, final boolean playable, final boolean visible) {
+    Type(final String code, final boolean playable, final boolean visible, final int[][] directions) {
         this.code = code;
         this.playable = playable;
         this.visible = visible;
+        rowSteps = new int[directions.length];
+        columnSteps = new int[directions.length];
+        for (int i = 0; i < directions.length; i++) {
+            rowSteps[i] = directions[i][0];
+            columnSteps[i] = directions[i][1];
+        }
     }
 
     public String getCode() {
@@ -178,18 +118,63 @@ public enum Type {
         return visible;
     }
 
-    public static Type findByCode(final String code) {
-        Type result = null;
-        for (final Type value : values()) {
-            if (value.code.equalsIgnoreCase(code)) {
-                result = value;
-            }
-        }
-        return result;
+    public int getDirectionCount() {
+        return rowSteps.length;
+    }
+
+    public int getRowStep(final int direction) {
+        return rowSteps[direction];
     }
 
-    public abstract int[][] getMoveDirectionArray();
+    public int getColumnStep(final int direction) {
+        return columnSteps[direction];
+    }
+
+    public static Type findByCode(final char code) {
+        return code < BY_CODE.length ? BY_CODE[code] : null;
+    }
+
+    public static Type findByFenCode(final char code, final boolean embassy) {
+        final Type[] types = embassy ? BY_EMBASSY_FEN_CODE : BY_CODE;
+        return code < types.length ? types[code] : null;
+    }
 
     public abstract int getMaxMoveDistance();
 
+    private static final class Directions {
+
+        private static final int[][] NONE = {};
+
+        private static final int[][] KING = {
+                {1, 1}, {1, 0}, {1, -1}, {0, 1}, {0, -1}, {-1, 1}, {-1, 0}, {-1, -1}
+        };
+
+        private static final int[][] QUEEN = {
+                {1, 1}, {1, 0}, {1, -1}, {0, 1}, {0, -1}, {-1, 1}, {-1, 0}, {-1, -1}
+        };
+
+        private static final int[][] ROOK = {
+                {1, 0}, {0, 1}, {0, -1}, {-1, 0}
+        };
+
+        private static final int[][] BISHOP = {
+                {1, 1}, {1, -1}, {-1, 1}, {-1, -1}
+        };
+
+        private static final int[][] KNIGHT = {
+                {1, 2}, {1, -2}, {-1, 2}, {-1, -2}, {2, 1}, {2, -1}, {-2, 1}, {-2, -1}
+        };
+
+        private static final int[][] ARCHBISHOP = {
+                {1, 2}, {1, -2}, {-1, 2}, {-1, -2}, {2, 1}, {2, -1}, {-2, 1}, {-2, -1},
+                {1, 1}, {1, -1}, {-1, 1}, {-1, -1}
+        };
+
+        private static final int[][] CHANCELLOR = {
+                {1, 2}, {1, -2}, {-1, 2}, {-1, -2}, {2, 1}, {2, -1}, {-2, 1}, {-2, -1},
+                {1, 0}, {0, 1}, {0, -1}, {-1, 0}
+        };
+
+    }
+
 }
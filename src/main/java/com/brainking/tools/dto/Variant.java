@@ -0,0 +1,178 @@
+package com.brainking.tools.dto;
+
+import com.brainking.tools.utils.Constants;
+
+public enum Variant {
+
+    CHESS("Chess"),
+    EXTINCTION(Constants.EXTINCTION),
+    THREE_CHECKS(Constants.THREE_CHECKS),
+    ANTI(Constants.ANTI),
+    KNIGHT_RELAY(Constants.KNIGHT_RELAY),
+    ATOMIC(Constants.ATOMIC) {
+        @Override
+        void afterMove(final Position position, final Move move) {
+            if (move.isCapture()) {
+                position.handleAtomicExplosion();
+            }
+        }
+    },
+    CHESHIRE_CAT(Constants.CHESHIRE_CAT) {
+        @Override
+        void afterMove(final Position position, final Move move) {
+            // the square left by the piece disappears
+            position.addHole(move.fromRow, move.fromColumn);
+        }
+    },
+    RACING_KINGS(Constants.RACING_KINGS),
+    KNIGHTMATE(Constants.KNIGHTMATE) {
+        @Override
+        public Type getRoyalType() {
+            return Type.KNIGHT;
+        }
+    },
+    CORNER(Constants.CORNER),
+    FORTRESS(Constants.FORTRESS),
+    HORDE(Constants.HORDE),
+    FISCHER_RANDOM(Constants.FISCHER_RANDOM, 8, 8, Castling.RANDOM),
+    ICE_AGE(Constants.ICE_AGE) {
+        @Override
+        void afterMove(final Position position, final Move move) {
+            // every 20th move of black freezes the board
+            if (move.getMoveNumber() % 20 == 0 && move.isBlack()) {
+                position.handleIceAgeEvent();
+            }
+        }
+    },
+    AMBIGUOUS(Constants.AMBIGUOUS),
+    LOS_ALAMOS(Constants.LOS_ALAMOS, 6, 6, Castling.STANDARD),
+    LEGAN(Constants.LEGAN),
+    SCREEN(Constants.SCREEN),
+    CRAZY_SCREEN(Constants.CRAZY_SCREEN),
+    LOOP(Constants.LOOP) {
+        @Override
+        void handleCapturedPiece(final Piece capturedPiece) {
+            // captured pieces change sides and can be placed again
+            capturedPiece.setOppositeColor();
+        }
+    },
+    EMBASSY(Constants.EMBASSY, 10, 8, Castling.EMBASSY),
+    GRAND(Constants.GRAND, 10, 10, Castling.STANDARD),
+    MASSACRE(Constants.MASSACRE),
+    JANUS(Constants.JANUS, 10, 8, Castling.JANUS),
+    CAPABLANCA_RANDOM(Constants.CAPABLANCA_RANDOM, 10, 8, Castling.RANDOM),
+    DARK(Constants.DARK) {
+        @Override
+        void afterMove(final Position position, final Move move) {
+            // recalculate visible squares
+            position.updateVisibleGrid();
+        }
+    };
+
+    private final String name;
+    private final int width;
+    private final int height;
+    private final Castling castling;
+
+    Variant(final String name) {
+        this(name, 8, 8, Castling.STANDARD);
+    }
+
+    Variant(final String name, final int width, final int height, final Castling castling) {
+        this.name = name;
+        this.width = width;
+        this.height = height;
+        this.castling = castling;
+    }
+
+    public static Variant fromName(final String name) {
+        // resolved once from the PGN tag, unknown variants are played as chess
+        Variant result = CHESS;
+        for (final Variant value : values()) {
+            if (value.name.equalsIgnoreCase(name)) {
+                result = value;
+            }
+        }
+        return result;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public Type getRoyalType() {
+        return Type.KING;
+    }
+
+    public boolean hasRandomCastling() {
+        return castling.random;
+    }
+
+    public int getLongCastlingKingColumn() {
+        return castling.longKingColumn;
+    }
+
+    public int getShortCastlingKingColumn() {
+        return castling.shortKingColumn;
+    }
+
+    public int getLongCastlingRookColumn(final int boardWidth) {
+        return castling.mirrored ? boardWidth - 1 : 0;
+    }
+
+    public int getShortCastlingRookColumn(final int boardWidth) {
+        return castling.mirrored ? 0 : boardWidth - 1;
+    }
+
+    public int getLongCastlingRookTargetColumn() {
+        return castling.longRookColumn;
+    }
+
+    public int getShortCastlingRookTargetColumn() {
+        return castling.shortRookColumn;
+    }
+
+    void afterMove(final Position position, final Move move) {
+        // no special rules after the move
+    }
+
+    void handleCapturedPiece(final Piece capturedPiece) {
+        // captured pieces keep their colour
+    }
+
+    private static final class Castling {
+
+        // target columns of king and rook, Embassy and Janus castle long to the right side
+        static final Castling STANDARD = new Castling(2, 6, 3, 5, false, false);
+        static final Castling RANDOM = new Castling(2, 6, 3, 5, false, true);
+        static final Castling EMBASSY = new Castling(7, 1, 6, 2, true, false);
+        static final Castling JANUS = new Castling(8, 1, 7, 2, true, false);
+
+        private final int longKingColumn;
+        private final int shortKingColumn;
+        private final int longRookColumn;
+        private final int shortRookColumn;
+        private final boolean mirrored;
+        private final boolean random;
+
+        private Castling(final int longKingColumn, final int shortKingColumn, final int longRookColumn,
+                         final int shortRookColumn, final boolean mirrored, final boolean random) {
+            this.longKingColumn = longKingColumn;
+            this.shortKingColumn = shortKingColumn;
+            this.longRookColumn = longRookColumn;
+            this.shortRookColumn = shortRookColumn;
+            this.mirrored = mirrored;
+            this.random = random;
+        }
+
+    }
+
+}
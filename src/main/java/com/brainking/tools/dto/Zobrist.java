@@ -0,0 +1,51 @@
+package com.brainking.tools.dto;
+
+import java.util.SplittableRandom;
+
+final class Zobrist {
+
+    private static final int MAX_SQUARES = 128;
+    private static final int COLORS = Color.values().length + 1;
+    private static final int TYPES = Type.values().length;
+    // fixed seed, so the same position has the same hash in every game and every run
+    private static final long SEED = 0x5DEECE66DL;
+    // one key per square, colour (neutral pieces last) and type
+    private static final long[] PIECE_KEYS = new long[MAX_SQUARES * COLORS * TYPES];
+    // keys of the other parts of the position, mixed in when the hash is requested
+    private static final long[] SLOT_KEYS = new long[MAX_SQUARES];
+
+    static {
+        final SplittableRandom random = new SplittableRandom(SEED);
+        for (int i = 0; i < PIECE_KEYS.length; i++) {
+            PIECE_KEYS[i] = random.nextLong();
+        }
+        for (int i = 0; i < SLOT_KEYS.length; i++) {
+            // odd keys, so different values of one slot never give the same product
+            SLOT_KEYS[i] = random.nextLong() | 1;
+        }
+    }
+
+    private Zobrist() {
+        // static keys only
+    }
+
+    static long pieceKey(final int square, final Piece piece) {
+        long key = 0;
+        if (piece != null) {
+            final int color = piece.isNeutral() ? COLORS - 1 : piece.getColor().ordinal();
+            key = PIECE_KEYS[(square * COLORS + color) * TYPES + piece.getType().ordinal()];
+        }
+        return key;
+    }
+
+    static long capturedKey(final int index, final Piece piece) {
+        // the index in the list of captured pieces takes the place of the square
+        return pieceKey(index & MAX_SQUARES - 1, piece);
+    }
+
+    static long mix(final long hash, final int slot, final long value) {
+        // the slot key keeps equal values in different parts (e.g. check counters) from cancelling out
+        return Long.rotateLeft(hash, 7) ^ (value + 1) * SLOT_KEYS[slot & MAX_SQUARES - 1];
+    }
+
+}
@@ -1,12 +1,17 @@
 package com.brainking.tools.services;
 
+import com.brainking.tools.dto.Animation;
+import com.brainking.tools.dto.Easing;
 import com.brainking.tools.dto.Game;
 import com.brainking.tools.dto.Move;
 import com.brainking.tools.dto.Position;
+import com.brainking.tools.dto.RenderProfile;
+import com.brainking.tools.dto.Variant;
 import com.brainking.tools.utils.Constants;
+import com.brainking.tools.video.FrameBatch;
+import com.brainking.tools.video.VideoSink;
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
-import org.jcodec.api.awt.AWTSequenceEncoder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -15,16 +20,26 @@ import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
+import jakarta.annotation.PreDestroy;
 import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
 import java.text.SimpleDateFormat;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Deque;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 @Service
 public class ChessGeneratorService {
@@ -42,6 +57,13 @@ public class ChessGeneratorService {
     private final String targetFolder;
     private final boolean youTubeExportActive;
     private final boolean generateVideo;
+    private final int parallelism;
+    private final int frameParallelism;
+    private final int segments;
+    // renders moves or segments from snapshots, only created when there is something to render in parallel
+    private final ForkJoinPool renderPool;
+    private final Animation animation;
+    private final RenderProfile profile;
 
     @Autowired
     public ChessGeneratorService(final RenderService renderService,
@@ -53,7 +75,13 @@ public class ChessGeneratorService {
                                 @Value("${source.folder}") final String sourceFolder,
                                 @Value("${target.folder}") final String targetFolder,
                                 @Value("${youtube.export.active:false}") final boolean youTubeExportActive,
-                                @Value("${generate.video:true}") final boolean generateVideo) {
+                                @Value("${generate.video:true}") final boolean generateVideo,
+                                @Value("${render.parallelism:1}") final int parallelism,
+                                @Value("${render.frame.parallelism:1}") final int frameParallelism,
+                                @Value("${render.segments:1}") final int segments,
+                                @Value("${animation.easing:linear}") final String easing,
+                                @Value("${animation.steps.per.square:0}") final int stepsPerSquare,
+                                @Value("${render.profile:social}") final String renderProfile) {
         this.renderService = renderService;
         this.positionService = positionService;
         this.importService = importService;
@@ -64,6 +92,19 @@ public class ChessGeneratorService {
         this.targetFolder = targetFolder;
         this.youTubeExportActive = youTubeExportActive;
         this.generateVideo = generateVideo;
+        this.parallelism = parallelism;
+        this.frameParallelism = frameParallelism;
+        this.segments = segments;
+        this.renderPool = frameParallelism > 1 || segments > 1 ? new ForkJoinPool(Math.max(frameParallelism, segments)) : null;
+        this.animation = new Animation(Easing.fromName(easing), stepsPerSquare);
+        this.profile = RenderProfile.fromName(renderProfile, RenderProfile.SOCIAL);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (renderPool != null) {
+            renderPool.shutdown();
+        }
     }
 
     @EventListener(ApplicationReadyEvent.class)
@@ -79,118 +120,329 @@ public class ChessGeneratorService {
         }
         fileService.createSourceFolders(input, archive);
         // TODO: setup YouTube OAuth 2 flow at the start
-        for (final File pgnFile : files) {
-            final Collection<File> existingFiles = fileService.getExistingSourceFiles(archive, pgnFile);
-            if (!existingFiles.isEmpty()) {
-                LOG.info("File " + pgnFile.getName() + " already processed, deleting.");
-                fileService.deleteFile(pgnFile);
-                continue;
+        if (parallelism > 1) {
+            renderInParallel(files, archive, processedFolder);
+        } else {
+            for (final File pgnFile : files) {
+                renderGame(pgnFile, archive, processedFolder);
             }
-            final long currentTime = System.currentTimeMillis();
-            try {
-                final Game game = importService.importPgn(pgnFile);
-                final List<Move> moves = new ArrayList<>();
-                final int squareSize = Constants.getSquareSize(game);
-                final Map<String, BufferedImage> whitePieceMap = renderService.getBufferedImageMap("White", squareSize);
-                final Map<String, BufferedImage> blackPieceMap = renderService.getBufferedImageMap("Black", squareSize);
-                game.addPieceMaps(whitePieceMap, blackPieceMap);
-                moves.add(new Move());  // blank first move to show the start position
-                moves.addAll(game.getMoves());
-                final Position position = positionService.generateStartPosition(game);
-                final String videoFolder = targetFolder + (StringUtils.isNotBlank(game.getVariant()) ? "/" + game.getVariant() : "");
-                LOG.info("Rendering the video to " + videoFolder);
-                fileService.createFolder(videoFolder);
-                final String videoName = game.getName();
-                if (generateVideo) {
-                    fileService.writeMetadata(game, videoFolder, videoName);
-                }
-                AWTSequenceEncoder encoder = null;
+        }
+    }
+
+    private void renderInParallel(final Collection<File> files, final File archive, final String processedFolder) {
+        // every game gets its own Game/Position state, the bounded queue keeps only a few PGN files waiting,
+        // and when it is full the submitting thread renders the game itself
+        LOG.info("Rendering " + files.size() + " games with " + parallelism + " workers");
+        final ExecutorService executor = new ThreadPoolExecutor(parallelism, parallelism, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(parallelism), new ThreadPoolExecutor.CallerRunsPolicy());
+        try {
+            for (final File pgnFile : files) {
+                executor.execute(() -> renderGameOnWorker(pgnFile, archive, processedFolder));
+            }
+        } finally {
+            // the workers are not daemon threads, they have to be stopped even when the submitting failed
+            executor.shutdown();
+        }
+        try {
+            if (!executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS)) {
+                LOG.error("Rendering workers did not finish.");
+            }
+        } catch (InterruptedException ex) {
+            LOG.error("Interrupted while waiting for rendering workers.", ex);
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @SuppressWarnings("PMD.AvoidCatchingGenericException")
+    private void renderGameOnWorker(final File pgnFile, final File archive, final String processedFolder) {
+        // an exception thrown by a worker would be lost (or stop the submitting loop), so one game
+        // failing is logged and the other games are still rendered
+        try {
+            renderGame(pgnFile, archive, processedFolder);
+        } catch (RuntimeException ex) {
+            LOG.error("Error rendering " + pgnFile.getName() + ".", ex);
+        }
+    }
+
+    private void renderGame(final File pgnFile, final File archive, final String processedFolder) {
+        final Collection<File> existingFiles = fileService.getExistingSourceFiles(archive, pgnFile);
+        if (!existingFiles.isEmpty()) {
+            LOG.info("File " + pgnFile.getName() + " already processed, deleting.");
+            fileService.deleteFile(pgnFile);
+            return;
+        }
+        final long currentTime = System.currentTimeMillis();
+        try {
+            final Game game = importService.importPgn(pgnFile);
+            game.setAnimation(animation);
+            // a RenderProfile tag in the PGN takes precedence over the configured profile
+            game.setProfile(RenderProfile.fromName(game.getProfileName(), profile));
+            final List<Move> moves = new ArrayList<>();
+            final int squareSize = Constants.getSquareSize(game);
+            final Map<String, BufferedImage> whitePieceMap = renderService.getBufferedImageMap("White", squareSize);
+            final Map<String, BufferedImage> blackPieceMap = renderService.getBufferedImageMap("Black", squareSize);
+            game.addPieceMaps(whitePieceMap, blackPieceMap);
+            game.addNeutralPieceMap(renderService.getNeutralImageMap(squareSize));
+            moves.add(new Move());  // blank first move to show the start position
+            moves.addAll(game.getMoves());
+            final Position position = positionService.generateStartPosition(game);
+            final String videoFolder = targetFolder + (StringUtils.isNotBlank(game.getVariantName()) ? "/" + game.getVariantName() : "");
+            LOG.info("Rendering the video to " + videoFolder);
+            fileService.createFolder(videoFolder);
+            final String videoName = game.getName();
+            if (generateVideo) {
+                fileService.writeMetadata(game, videoFolder, videoName);
+            }
+            String pathToVideo = null;
+            if (generateVideo && segments > 1) {
+                pathToVideo = renderSegments(game, position, moves, videoFolder, videoName);
+            } else {
+                VideoSink videoSink = null;
                 if (generateVideo) {
-                    encoder = encoderService.createMovEncoder(videoFolder, videoName);
+                    videoSink = encoderService.createVideoSink(videoFolder, videoName, game.getProfile());
                 }
-                final List<Move> processedMoves = getProcessedMoves(encoder, game, position, moves, videoFolder, videoName);
-                // display result and keep it for 10 seconds
-                if (encoder != null) {
-                    encodeFinalScreen(encoder, game, position, processedMoves);
-                    encoder.finish();
-                    LOG.info("Converting to MP4");
-                    final String pathToVideo = encoderService.convertToMP4(videoFolder, videoName);
-                    LOG.info("Video " + pathToVideo + " completed in " +
-                            new SimpleDateFormat("mm:ss", Locale.ENGLISH). format(System.currentTimeMillis() - currentTime) +
-                            " minutes");
-                    LOG.info("Archiving file " + pgnFile + " to " + processedFolder);
-                    fileService.moveFileToFolder(pgnFile, archive);
-                    if (youTubeExportActive) {
-                        // TODO: https://explorer.lichess.ovh/master?fen=<fenCode>
-                        LOG.info("Uploading video " + pathToVideo + " to YouTube");
-                        final String youTubeId = youTubeService.uploadVideo(game, pathToVideo);
-                        LOG.info("Video " + pathToVideo + " uploaded with ID = " + youTubeId);
-                        LOG.info("SQL command (bk20 database): insert into game_external (game_id, you_tube_id) values (" +
-                                game.getName() + ", '" + youTubeId + "');");
+                boolean rendered = false;
+                try {
+                    final List<Move> processedMoves = getProcessedMoves(videoSink, game, position, moves, videoFolder, videoName);
+                    // display result and keep it for 10 seconds
+                    if (videoSink != null) {
+                        encodeFinalScreen(videoSink, game, position, processedMoves);
                     }
+                    rendered = true;
+                } finally {
+                    if (!rendered && videoSink != null) {
+                        encoderService.abortVideo(videoSink, videoFolder, videoName);
+                    }
+                }
+                if (videoSink != null) {
+                    pathToVideo = encoderService.finishVideo(videoSink, videoFolder, videoName, game.getProfile());
                 }
-            } catch (IOException ex) {
-                LOG.error("Error rendering the video.", ex);
             }
+            if (generateVideo) {
+                LOG.info("Video " + pathToVideo + " completed in " +
+                        new SimpleDateFormat("mm:ss", Locale.ENGLISH). format(System.currentTimeMillis() - currentTime) +
+                        " minutes");
+                LOG.info("Archiving file " + pgnFile + " to " + processedFolder);
+                fileService.moveFileToFolder(pgnFile, archive);
+                if (youTubeExportActive) {
+                    // TODO: https://explorer.lichess.ovh/master?fen=<fenCode>
+                    LOG.info("Uploading video " + pathToVideo + " to YouTube");
+                    final String youTubeId = youTubeService.uploadVideo(game, pathToVideo);
+                    LOG.info("Video " + pathToVideo + " uploaded with ID = " + youTubeId);
+                    LOG.info("SQL command (bk20 database): insert into game_external (game_id, you_tube_id) values (" +
+                            game.getName() + ", '" + youTubeId + "');");
+                }
+            }
+        } catch (IOException ex) {
+            LOG.error("Error rendering the video.", ex);
         }
     }
 
     private List<Move> getProcessedMoves(
-        final AWTSequenceEncoder encoder,
+        final VideoSink videoSink,
         final Game game,
         final Position position,
         final List<Move> moves,
         final String videoFolder,
         final String videoName) throws IOException {
+        final List<Move> processedMoves;
+        if (videoSink != null && frameParallelism > 1) {
+            processedMoves = getProcessedMovesInParallel(videoSink, game, position, moves, videoFolder, videoName);
+        } else {
+            processedMoves = new ArrayList<>();
+            for (final Move move : moves) {
+                processedMoves.add(move);
+                playMove(videoSink, game, position, move, processedMoves);
+                saveScreenshot(game, position, move, videoFolder, videoName);
+            }
+        }
+        position.finishGame();
+        return processedMoves;
+    }
+
+    private List<Move> getProcessedMovesInParallel(
+        final VideoSink videoSink,
+        final Game game,
+        final Position position,
+        final List<Move> moves,
+        final String videoFolder,
+        final String videoName) throws IOException {
+        // the main thread only plays the moves, every move is rendered on the pool from a snapshot
+        // of the position before the move, and the rendered moves are encoded in the original order
         final List<Move> processedMoves = new ArrayList<>();
+        final Deque<Future<FrameBatch>> renderedMoves = new ArrayDeque<>();
         for (final Move move : moves) {
             processedMoves.add(move);
-            // mark target square for Ambiguous Chess
-            if (encoder != null && game.isVariant(Constants.AMBIGUOUS)) {
-                position.markTargetSquare(move);
-                for (int i = 0; i < Constants.FRAMES_TO_SHOW_TARGET; i++) {
-                    final BufferedImage image = renderService.getRenderedImage(game, position, processedMoves);
-                    encoder.encodeImage(image);
-                }
+            final Position snapshot = position.snapshot();
+            final Move snapshotMove = Move.from(move);
+            final List<Move> snapshotMoves = new ArrayList<>(processedMoves);
+            renderedMoves.add(renderPool.submit(() -> renderMove(game, snapshot, snapshotMove, snapshotMoves)));
+            playMove(null, game, position, move, processedMoves);
+            saveScreenshot(game, position, move, videoFolder, videoName);
+            // limit the number of moves waiting in memory, each of them holds all its frames
+            if (renderedMoves.size() >= frameParallelism) {
+                encodeRenderedMove(videoSink, renderedMoves.poll());
             }
-            position.startMoving(move);
-            while (position.isMoving()) {
-                position.doMoveStep();
-                if (encoder != null) {
-                    final BufferedImage image = renderService.getRenderedImage(game, position, processedMoves);
-                    encoder.encodeImage(image);
+        }
+        while (!renderedMoves.isEmpty()) {
+            encodeRenderedMove(videoSink, renderedMoves.poll());
+        }
+        return processedMoves;
+    }
+
+    private String renderSegments(
+        final Game game,
+        final Position position,
+        final List<Move> moves,
+        final String videoFolder,
+        final String videoName) throws IOException {
+        // the moves are split into consecutive segments, the main thread only plays the moves, and every segment
+        // is rendered on the pool from a snapshot of the position before its first move into a separate video,
+        // then the videos are joined without encoding them again
+        final int segmentCount = Math.min(segments, moves.size());
+        final List<VideoSink> segmentSinks = new ArrayList<>();
+        final List<Future<VideoSink>> renderedSegments = new ArrayList<>();
+        final List<Move> processedMoves = new ArrayList<>();
+        boolean rendered = false;
+        try {
+            for (int segment = 0; segment < segmentCount; segment++) {
+                final List<Move> segmentMoves = moves.subList(segment * moves.size() / segmentCount, (segment + 1) * moves.size() / segmentCount);
+                final VideoSink segmentSink = encoderService.createSegmentSink(videoFolder, videoName, segment, game.getProfile());
+                segmentSinks.add(segmentSink);
+                final Position snapshot = position.snapshot();
+                final List<Move> snapshotMoves = segmentMoves.stream().map(Move::from).toList();
+                final List<Move> snapshotProcessedMoves = new ArrayList<>(processedMoves);
+                final boolean lastSegment = segment == segmentCount - 1;
+                renderedSegments.add(renderPool.submit(() ->
+                        renderSegment(segmentSink, game, snapshot, snapshotMoves, snapshotProcessedMoves, lastSegment)));
+                for (final Move move : segmentMoves) {
+                    processedMoves.add(move);
+                    playMove(null, game, position, move, processedMoves);
+                    saveScreenshot(game, position, move, videoFolder, videoName);
                 }
             }
-            position.stopMoving();
-            // save screenshot
-            if (move.getScreenshotId() != null) {
-                final BufferedImage image = renderService.getScreenshot(game, position);
-                final String screenshotName = videoName + "-" + move.getScreenshotId() + ".png";
-                ImageIO.write(image, "png", new File(videoFolder, screenshotName));
-                LOG.info("Screenshot " + screenshotName + " saved to " + videoFolder);
+            position.finishGame();
+            for (final Future<VideoSink> renderedSegment : renderedSegments) {
+                getRendered(renderedSegment, "the segment");
+            }
+            rendered = true;
+        } finally {
+            if (!rendered) {
+                // the other segments still write to their sinks, so wait for them before the sinks are closed
+                awaitSegments(renderedSegments);
+                encoderService.abortSegments(segmentSinks, videoFolder, videoName);
+            }
+        }
+        return encoderService.finishSegments(segmentSinks, videoFolder, videoName, game.getProfile());
+    }
+
+    private void awaitSegments(final List<Future<VideoSink>> renderedSegments) {
+        for (final Future<VideoSink> renderedSegment : renderedSegments) {
+            try {
+                renderedSegment.get();
+            } catch (ExecutionException ex) {
+                LOG.error("Error rendering the segment.", ex.getCause());
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                LOG.error("Interrupted while waiting for the segments.", ex);
             }
-            // add ten times the last frame to set a delay between moves
-            if (encoder != null) {
+        }
+    }
+
+    private VideoSink renderSegment(
+        final VideoSink videoSink,
+        final Game game,
+        final Position position,
+        final List<Move> moves,
+        final List<Move> processedMoves,
+        final boolean lastSegment) throws IOException {
+        for (final Move move : moves) {
+            processedMoves.add(move);
+            playMove(videoSink, game, position, move, processedMoves);
+        }
+        // only the last segment shows the result
+        if (lastSegment) {
+            position.finishGame();
+            encodeFinalScreen(videoSink, game, position, processedMoves);
+        }
+        return videoSink;
+    }
+
+    private FrameBatch renderMove(final Game game, final Position position, final Move move, final List<Move> processedMoves) throws IOException {
+        final FrameBatch frameBatch = new FrameBatch();
+        playMove(frameBatch, game, position, move, processedMoves);
+        return frameBatch;
+    }
+
+    private void encodeRenderedMove(final VideoSink videoSink, final Future<FrameBatch> renderedMove) throws IOException {
+        getRendered(renderedMove, "the move").encodeTo(videoSink);
+    }
+
+    private <T> T getRendered(final Future<T> rendered, final String task) throws IOException {
+        try {
+            return rendered.get();
+        } catch (ExecutionException ex) {
+            throw new IOException("Error rendering " + task + ".", ex.getCause());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while rendering " + task + ".", ex);
+        }
+    }
+
+    private void playMove(
+        final VideoSink videoSink,
+        final Game game,
+        final Position position,
+        final Move move,
+        final List<Move> processedMoves) throws IOException {
+        // mark target square for Ambiguous Chess, shown in the video only
+        if (generateVideo && game.isVariant(Variant.AMBIGUOUS)) {
+            position.markTargetSquare(move);
+            if (videoSink != null) {
                 final BufferedImage image = renderService.getRenderedImage(game, position, processedMoves);
-                for (int i = 0; i < Constants.FRAMES_BETWEEN_MOVES; i++) {
-                    encoder.encodeImage(image);
-                }
+                videoSink.encodeImage(image, game.getProfile().getFrames(Constants.FRAMES_TO_SHOW_TARGET));
             }
         }
-        position.finishGame();
-        return processedMoves;
+        position.startMoving(move);
+        while (position.isMoving()) {
+            position.doMoveStep();
+            if (videoSink != null) {
+                final BufferedImage image = renderService.getRenderedImage(game, position, processedMoves);
+                videoSink.encodeImage(image);
+            }
+        }
+        position.stopMoving();
+        // hold the last frame to set a delay between moves
+        if (videoSink != null) {
+            final BufferedImage image = renderService.getRenderedImage(game, position, processedMoves);
+            videoSink.encodeImage(image, game.getProfile().getFrames(Constants.FRAMES_BETWEEN_MOVES));
+        }
+    }
+
+    private void saveScreenshot(
+        final Game game,
+        final Position position,
+        final Move move,
+        final String videoFolder,
+        final String videoName) throws IOException {
+        if (move.getScreenshotId() != null) {
+            final BufferedImage image = renderService.getScreenshot(game, position);
+            final String screenshotName = videoName + "-" + move.getScreenshotId() + ".png";
+            ImageIO.write(image, "png", new File(videoFolder, screenshotName));
+            renderService.releaseImage(image);
+            LOG.info("Screenshot " + screenshotName + " saved to " + videoFolder);
+        }
     }
 
     private void encodeFinalScreen(
-        final AWTSequenceEncoder encoder,
+        final VideoSink videoSink,
         final Game game,
         final Position position,
         final List<Move> processedMoves) throws IOException {
         LOG.info("Rendering the final screen");
         final BufferedImage image = renderService.getRenderedImage(game, position, processedMoves);
-        for (int i = 0; i < Constants.FRAMES_AFTER_LAST_MOVE; i++) {
-            encoder.encodeImage(image);
-        }
+        videoSink.encodeImage(image, game.getProfile().getFrames(Constants.FRAMES_AFTER_LAST_MOVE));
     }
 
 }
@@ -1,11 +1,19 @@
 package com.brainking.tools.services;
 
+import com.brainking.tools.dto.RenderProfile;
 import com.brainking.tools.services.utils.EncoderCoreService;
-import com.brainking.tools.utils.Constants;
+import com.brainking.tools.video.FFmpegVideoSink;
+import com.brainking.tools.video.FramePool;
+import com.brainking.tools.video.JcodecVideoSink;
+import com.brainking.tools.video.PipelinedVideoSink;
+import com.brainking.tools.video.RawVideoSink;
+import com.brainking.tools.video.VideoBackend;
+import com.brainking.tools.video.VideoSink;
 import org.jcodec.api.awt.AWTSequenceEncoder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import ws.schild.jave.Encoder;
 import ws.schild.jave.EncoderException;
@@ -18,7 +26,9 @@ import ws.schild.jave.info.VideoSize;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 
 @Service
 public class EncoderService {
@@ -27,18 +37,168 @@ public class EncoderService {
 
     private final EncoderCoreService encoderCoreService;
     private final FileService fileService;
+    private final FramePool framePool;
+    private final VideoBackend videoBackend;
+    private final int pipelineFrames;
+    private final String x264Preset;
+    private final int x264Crf;
+    private final int x264Threads;
 
     @Autowired
-    public EncoderService(final EncoderCoreService encoderCoreService, final FileService fileService) {
+    public EncoderService(final EncoderCoreService encoderCoreService,
+                          final FileService fileService,
+                          final FramePool framePool,
+                          @Value("${video.encoder:ffmpeg}") final String videoEncoder,
+                          @Value("${video.pipeline.frames:0}") final int pipelineFrames,
+                          @Value("${video.x264.preset:medium}") final String x264Preset,
+                          @Value("${video.x264.crf:23}") final int x264Crf,
+                          @Value("${video.x264.threads:0}") final int x264Threads) {
         this.encoderCoreService = encoderCoreService;
         this.fileService = fileService;
+        this.framePool = framePool;
+        this.videoBackend = VideoBackend.fromName(videoEncoder);
+        this.pipelineFrames = pipelineFrames;
+        this.x264Preset = x264Preset;
+        this.x264Crf = x264Crf;
+        this.x264Threads = x264Threads;
     }
 
-    public AWTSequenceEncoder createMovEncoder(final String videoFolder, final String videoName) throws IOException {
-        return encoderCoreService.createMovEncoder(videoFolder, videoName);
+    public AWTSequenceEncoder createMovEncoder(final String videoFolder, final String videoName, final RenderProfile profile) throws IOException {
+        return encoderCoreService.createMovEncoder(videoFolder, videoName, profile.getFrameRate());
     }
 
-    public String convertToMP4(final String targetFolder, final String videoName) {
+    public VideoSink createVideoSink(final String videoFolder, final String videoName, final RenderProfile profile) throws IOException {
+        final int width = profile.getVideoWidth();
+        final int height = profile.getVideoHeight();
+        final VideoSink videoSink = switch (videoBackend) {
+            case FFMPEG -> {
+                // pipe raw frames directly into a single H.264 encode, no intermediate MOV file
+                final File target = new File(videoFolder, videoName + ".mp4");
+                final List<String> arguments = List.of(
+                        "-y", "-loglevel", "error",
+                        "-f", "rawvideo", "-pix_fmt", "bgr24",
+                        "-s", width + "x" + height,
+                        "-r", String.valueOf(profile.getFrameRate()),
+                        "-i", "-",
+                        "-c:v", "libx264", "-profile:v", "main", "-pix_fmt", "yuv420p",
+                        // faster presets trade file size for encoding speed, 0 threads lets x264 use all cores
+                        "-preset", x264Preset, "-crf", String.valueOf(x264Crf), "-threads", String.valueOf(x264Threads),
+                        "-movflags", "+faststart",
+                        target.getPath());
+                yield new FFmpegVideoSink(encoderCoreService.startFFmpegProcess(arguments), width, height, framePool);
+            }
+            case RAW -> new RawVideoSink(encoderCoreService.createRawOutput(videoFolder, videoName), width, height, framePool);
+            default -> new JcodecVideoSink(createMovEncoder(videoFolder, videoName, profile), framePool);
+        };
+        // encode on a separate thread, the renderer blocks only when the frame buffer is full
+        return pipelineFrames > 0 ? new PipelinedVideoSink(videoSink, pipelineFrames, framePool) : videoSink;
+    }
+
+    public VideoSink createSegmentSink(final String videoFolder, final String videoName, final int segment, final RenderProfile profile) throws IOException {
+        // every segment starts with a key frame, and x264 (like jcodec) keeps its GOPs closed,
+        // so the segments can be joined by copying the streams
+        return createVideoSink(videoFolder, getSegmentName(videoName, segment), profile);
+    }
+
+    public String finishVideo(final VideoSink videoSink, final String videoFolder, final String videoName, final RenderProfile profile) throws IOException {
+        videoSink.finish();
+        return completeVideo(videoSink.isMP4(), videoFolder, videoName, profile);
+    }
+
+    public String finishSegments(final List<VideoSink> segmentSinks, final String videoFolder, final String videoName, final RenderProfile profile) throws IOException {
+        final String extension = "." + videoBackend.getExtension();
+        final List<File> segmentFiles = getSegmentFiles(segmentSinks.size(), videoFolder, videoName);
+        final String result;
+        try {
+            finishSinks(segmentSinks);
+            // the joined file is the same a single sink would have written, so it is completed the same way
+            final File target = new File(videoFolder, videoName + extension);
+            LOG.info("Joining " + segmentFiles.size() + " segments");
+            if (videoBackend == VideoBackend.RAW) {
+                encoderCoreService.appendFiles(segmentFiles, target);
+            } else {
+                encoderCoreService.concatVideos(segmentFiles, target);
+            }
+            result = completeVideo(!segmentSinks.isEmpty() && segmentSinks.getFirst().isMP4(), videoFolder, videoName, profile);
+        } finally {
+            deleteFiles(segmentFiles);
+        }
+        return result;
+    }
+
+    public void abortVideo(final VideoSink videoSink, final String videoFolder, final String videoName) {
+        // a game failing while rendering must not leave an encoder (e.g. an ffmpeg process) running
+        abortSinks(List.of(videoSink));
+        deleteFiles(List.of(new File(videoFolder, videoName + "." + videoBackend.getExtension())));
+    }
+
+    public void abortSegments(final List<VideoSink> segmentSinks, final String videoFolder, final String videoName) {
+        abortSinks(segmentSinks);
+        deleteFiles(getSegmentFiles(segmentSinks.size(), videoFolder, videoName));
+    }
+
+    private void abortSinks(final List<VideoSink> videoSinks) {
+        try {
+            finishSinks(videoSinks);
+        } catch (IOException ex) {
+            LOG.error("Error closing the video of a failed game.", ex);
+        }
+    }
+
+    private static void finishSinks(final List<VideoSink> videoSinks) throws IOException {
+        // every sink is finished even when another one fails, the first failure is reported
+        IOException failure = null;
+        for (final VideoSink videoSink : videoSinks) {
+            try {
+                videoSink.finish();
+            } catch (IOException ex) {
+                if (failure == null) {
+                    failure = ex;
+                } else {
+                    failure.addSuppressed(ex);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private List<File> getSegmentFiles(final int segmentCount, final String videoFolder, final String videoName) {
+        final List<File> segmentFiles = new ArrayList<>();
+        for (int segment = 0; segment < segmentCount; segment++) {
+            segmentFiles.add(new File(videoFolder, getSegmentName(videoName, segment) + "." + videoBackend.getExtension()));
+        }
+        return segmentFiles;
+    }
+
+    private void deleteFiles(final List<File> files) {
+        for (final File file : files) {
+            if (file.exists()) {
+                fileService.deleteFile(file);
+            }
+        }
+    }
+
+    private String completeVideo(final boolean mp4, final String videoFolder, final String videoName, final RenderProfile profile) {
+        final String result;
+        if (mp4) {
+            result = videoFolder + "/" + videoName + ".mp4";
+        } else if (videoBackend == VideoBackend.RAW) {
+            // nothing to convert, the raw frame dump is kept as it is
+            result = videoFolder + "/" + videoName + "." + videoBackend.getExtension();
+        } else {
+            LOG.info("Converting to MP4");
+            result = convertToMP4(videoFolder, videoName, profile);
+        }
+        return result;
+    }
+
+    private static String getSegmentName(final String videoName, final int segment) {
+        return videoName + "-segment" + segment;
+    }
+
+    public String convertToMP4(final String targetFolder, final String videoName, final RenderProfile profile) {
         String result = "";
         try {
             final File source = new File(targetFolder, videoName + ".mov");
@@ -46,8 +206,8 @@ public class EncoderService {
             final VideoAttributes video = new VideoAttributes();
             video.setCodec("h264");
             video.setX264Profile(X264_PROFILE.MAIN);
-            video.setFrameRate(25);
-            video.setSize(new VideoSize(Constants.VIDEO_WIDTH, Constants.VIDEO_HEIGHT));
+            video.setFrameRate(profile.getFrameRate());
+            video.setSize(new VideoSize(profile.getVideoWidth(), profile.getVideoHeight()));
             final EncodingAttributes attrs = new EncodingAttributes();
             attrs.setOutputFormat("mp4");
             attrs.setVideoAttributes(video);
@@ -61,7 +221,7 @@ public class EncoderService {
         return result;
     }
 
-    public void addAudioToVideo(final String audioPath, final String videoPath, final String targetPath) {
+    public void addAudioToVideo(final String audioPath, final String videoPath, final String targetPath, final RenderProfile profile) {
         try {
             final File audio = new File(audioPath);
             final File video = new File(videoPath);
@@ -70,8 +230,8 @@ public class EncoderService {
             final VideoAttributes videoAttributes = new VideoAttributes();
             videoAttributes.setCodec("h264");
             videoAttributes.setX264Profile(X264_PROFILE.MAIN);
-            videoAttributes.setFrameRate(25);
-            videoAttributes.setSize(new VideoSize(Constants.VIDEO_WIDTH, Constants.VIDEO_HEIGHT));
+            videoAttributes.setFrameRate(profile.getFrameRate());
+            videoAttributes.setSize(new VideoSize(profile.getVideoWidth(), profile.getVideoHeight()));
             final EncodingAttributes attrs = new EncodingAttributes();
             attrs.setOutputFormat("mp4");
             attrs.setAudioAttributes(audioAttributes);
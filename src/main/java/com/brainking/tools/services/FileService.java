@@ -45,7 +45,8 @@ public class FileService {
         }
     }
 
-    public void createFolder(final String name) {
+    // games rendered in parallel share the variant folders and the archive
+    public synchronized void createFolder(final String name) {
         try {
             FileUtils.forceMkdir(new File(name));
         } catch (IOException ex) {
@@ -53,7 +54,7 @@ public class FileService {
         }
     }
 
-    public void moveFileToFolder(final File file, final File folder) {
+    public synchronized void moveFileToFolder(final File file, final File folder) {
         try {
             FileUtils.moveFileToDirectory(file, folder, true);
         } catch (IOException ex) {
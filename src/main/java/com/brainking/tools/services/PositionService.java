@@ -5,6 +5,7 @@ import com.brainking.tools.dto.Game;
 import com.brainking.tools.dto.Piece;
 import com.brainking.tools.dto.Position;
 import com.brainking.tools.dto.Type;
+import com.brainking.tools.dto.Variant;
 import com.brainking.tools.utils.Constants;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
@@ -21,24 +22,24 @@ public class PositionService {
         final String fen = game.getFEN();
         if (StringUtils.isNotBlank(fen)) {
             addPositionFromFEN(game, position, fen);
-        } else if (game.isVariant(Constants.RACING_KINGS)) {
+        } else if (game.isVariant(Variant.RACING_KINGS)) {
             addRacingKingsPosition(position);
-        } else if (game.isVariant(Constants.KNIGHTMATE)) {
+        } else if (game.isVariant(Variant.KNIGHTMATE)) {
             addKnightmateChessPosition(position);
-        } else if (game.isVariant(Constants.HORDE)) {
+        } else if (game.isVariant(Variant.HORDE)) {
             addHordeChessPosition(position);
-        } else if (game.isVariant(Constants.ICE_AGE)) {
+        } else if (game.isVariant(Variant.ICE_AGE)) {
             addIceAgeChessPosition(position);
-        } else if (game.isVariant(Constants.LOS_ALAMOS)) {
+        } else if (game.isVariant(Variant.LOS_ALAMOS)) {
             addLosAlamosPosition(position);
-        } else if (game.isVariant(Constants.LEGAN)) {
+        } else if (game.isVariant(Variant.LEGAN)) {
             addLeganPosition(position);
-        } else if (game.isVariant(Constants.GRAND)) {
+        } else if (game.isVariant(Variant.GRAND)) {
             addGrandPosition(position);
         } else {
             addStandardChessPosition(position);
         }
-        if (game.isVariant(Constants.DARK)) {
+        if (game.isVariant(Variant.DARK)) {
             position.resetVisibleGrid();
         }
         return position;
@@ -48,33 +49,19 @@ public class PositionService {
         // Example: kqnbbrrn/pppppppp/ppp5/8/8/5PPP/PPPPPPPP/NRRBBNQK w KQkq - 0 1
         LOG.info("Generating the position from FEN: " + fen);
         final String[] rowArray = fen.split(" ")[0].split("/");
+        final boolean embassy = game.isVariant(Variant.EMBASSY);
         for (int row = 7; row >= 0; row--) {
             int column = 0;
             final String codes = rowArray[7 - row];
             for (int i = 0; i < codes.length(); i++) {
                 final char code = codes.charAt(i);
-                String codeString = String.valueOf(code);
                 if (Character.isDigit(code)) {
-                    column += Integer.parseInt(codeString);
+                    column += Character.digit(code, 10);
                 } else if (Character.isUpperCase(code)) {
-                    if (game.isVariant(Constants.EMBASSY)) {
-                        codeString = switch (codeString) {
-                            case "M" -> "C";
-                            case "C" -> "A";
-                            default -> codeString;
-                        };
-                    }
-                    position.addPiece(new Piece(Color.WHITE, Type.findByCode(codeString)), row, column);
+                    position.addPiece(new Piece(Color.WHITE, Type.findByFenCode(code, embassy)), row, column);
                     column++;
                 } else if (Character.isLowerCase(code)) {
-                    if (game.isVariant(Constants.EMBASSY)) {
-                        codeString = switch (codeString) {
-                            case "m" -> "c";
-                            case "c" -> "a";
-                            default -> codeString;
-                        };
-                    }
-                    position.addPiece(new Piece(Color.BLACK, Type.findByCode(codeString)), row, column);
+                    position.addPiece(new Piece(Color.BLACK, Type.findByFenCode(code, embassy)), row, column);
                     column++;
                 }
             }
@@ -1,5 +1,6 @@
 package com.brainking.tools.services;
 
+import java.awt.AlphaComposite;
 import java.awt.Color;
 import java.awt.Font;
 import java.awt.FontMetrics;
@@ -8,13 +9,20 @@ import java.awt.RenderingHints;
 import java.awt.TexturePaint;
 import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import com.brainking.tools.dto.Game;
@@ -22,18 +30,40 @@ import com.brainking.tools.dto.Move;
 import com.brainking.tools.dto.Notation;
 import com.brainking.tools.dto.Piece;
 import com.brainking.tools.dto.Position;
+import com.brainking.tools.dto.RenderProfile;
+import com.brainking.tools.dto.Variant;
 import com.brainking.tools.utils.Constants;
 import com.brainking.tools.utils.Fonts;
+import com.brainking.tools.video.FramePool;
 
 @Service
-@SuppressWarnings("PMD.GodClass")
+@SuppressWarnings({"PMD.GodClass", "PMD.LooseCoupling"})
 public class RenderService {
 
+    // boards of the first moves (about eight moves of each side) are likely to appear in other games too
+    private static final int OPENING_MOVES = 16;
+
     private final SvgService svgService;
+    // output images are leased from the pool and released by the encoder (or after writing the screenshot)
+    private final FramePool framePool;
+    // layers are kept per game and position, so the frames of one game never see layers of another one
+    private final Map<Game, BufferedImage> staticLayers = Collections.synchronizedMap(new WeakHashMap<>());
+    private final Map<Position, BoardLayer> boardLayers = Collections.synchronizedMap(new WeakHashMap<>());
+    // sprites prescaled to the other sizes they are drawn at (e.g. captured pieces), keyed by the original sprite
+    private final Map<BufferedImage, Map<Integer, BufferedImage>> scaledSprites = Collections.synchronizedMap(new WeakHashMap<>());
+    // rasters of settled boards keyed by the position hash, shared by all games, so repeated positions
+    // (e.g. the common openings) are copied instead of rendered again
+    private final Map<BoardKey, BoardRaster> boardRasters;
+    private final int boardCacheSize;
 
     @Autowired
-    public RenderService(final SvgService svgService) {
+    public RenderService(final SvgService svgService,
+                         final FramePool framePool,
+                         @Value("${render.board.cache.size:32}") final int boardCacheSize) {
         this.svgService = svgService;
+        this.framePool = framePool;
+        this.boardCacheSize = boardCacheSize;
+        this.boardRasters = Collections.synchronizedMap(new RasterMap(boardCacheSize));
     }
 
     public void renderChessBoard(
@@ -52,6 +82,12 @@ public class RenderService {
         // render pieces
         renderPieces(graphics2d, game, position, yShift);
         // mask invisible squares
+        renderInvisibleSquares(graphics2d, game, position, boardX, boardY, squareSize);
+        // render captured pieces
+        renderCapturedPieces(graphics2d, game, position, yShift, false);
+    }
+
+    private void renderInvisibleSquares(final Graphics2D graphics2d, final Game game, final Position position, final int boardX, final int boardY, final int squareSize) {
         for (int i = 0; i < game.getWidth(); i++) {
             for (int j = 0; j < game.getHeight(); j++) {
                 final int row = game.hasOppositeOrientation() ? j : game.getHeight() - 1 - j;
@@ -64,17 +100,51 @@ public class RenderService {
                 }
             }
         }
-        // render captured pieces
+    }
+
+    private void renderInvisibleSquares(final Graphics2D graphics2d, final Game game, final Position position, final Piece piece) {
+        final int boardX = Constants.getBoardX(game);
+        final int boardY = Constants.getBoardY(game);
+        final int squareSize = Constants.getSquareSize(game);
+        int xPos = piece.getX();
+        int yPos = piece.getY();
+        if (game.hasOppositeOrientation()) {
+            xPos = game.getProfile().getVideoWidth() - xPos - squareSize;
+            yPos = game.getProfile().getVideoHeight() - yPos - squareSize;
+        }
+        // only the squares under the piece
+        final int fromI = Math.max(0, Math.floorDiv(xPos - boardX, squareSize));
+        final int toI = Math.min(game.getWidth() - 1, Math.floorDiv(xPos + squareSize - 1 - boardX, squareSize));
+        final int fromJ = Math.max(0, Math.floorDiv(yPos - boardY, squareSize));
+        final int toJ = Math.min(game.getHeight() - 1, Math.floorDiv(yPos + squareSize - 1 - boardY, squareSize));
+        graphics2d.setColor(Constants.INVISIBLE_SQUARE);
+        for (int i = fromI; i <= toI; i++) {
+            for (int j = fromJ; j <= toJ; j++) {
+                final int row = game.hasOppositeOrientation() ? j : game.getHeight() - 1 - j;
+                final int column = game.hasOppositeOrientation() ? game.getWidth() - 1 - i : i;
+                if (!position.isVisible(row, column)) {
+                    graphics2d.fillRect(boardX + i * squareSize, boardY + j * squareSize, squareSize, squareSize);
+                }
+            }
+        }
+    }
+
+    private void renderCapturedPieces(final Graphics2D graphics2d, final Game game, final Position position, final int yShift, final boolean restingOnly) {
         for (final Piece piece : position.getWhiteCapturedPieces()) {
-            renderPiece(graphics2d, game, piece, Constants.getCapturedPieceSize(game), yShift);
+            if (!restingOnly || !piece.isMoving()) {
+                renderPiece(graphics2d, game, piece, Constants.getCapturedPieceSize(game), yShift);
+            }
         }
         for (final Piece piece : position.getBlackCapturedPieces()) {
-            renderPiece(graphics2d, game, piece, Constants.getCapturedPieceSize(game), yShift);
+            if (!restingOnly || !piece.isMoving()) {
+                renderPiece(graphics2d, game, piece, Constants.getCapturedPieceSize(game), yShift);
+            }
         }
     }
 
     public BufferedImage getScreenshot(final Game game, final Position position) {
-        final BufferedImage image = new BufferedImage(Constants.VIDEO_WIDTH, Constants.SCREENSHOT_HEIGHT, BufferedImage.TYPE_3BYTE_BGR);
+        final RenderProfile profile = game.getProfile();
+        final BufferedImage image = framePool.lease(profile.getVideoWidth(), profile.scale(Constants.SCREENSHOT_HEIGHT));
         final Graphics2D graphics2d = image.createGraphics();
         graphics2d.setColor(Constants.SCREENSHOT);
         graphics2d.fillRect(0, 0, image.getWidth(), image.getHeight());
@@ -82,10 +152,18 @@ public class RenderService {
         return image;
     }
 
+    public void releaseImage(final BufferedImage image) {
+        framePool.release(image);
+    }
+
     public Map<String, BufferedImage> getBufferedImageMap(final String prefix, final int squareSize) {
         return svgService.getBufferedImageMap(svgService.getImageResourceMap(prefix), squareSize);
     }
 
+    public Map<String, BufferedImage> getNeutralImageMap(final int squareSize) {
+        return svgService.getBufferedImageMap(svgService.getNeutralImageResourceMap(), squareSize);
+    }
+
     private void renderEmptyBoard(final Graphics2D graphics2d, final Game game, final Position position, final int boardX, final int boardY, final int squareSize, final boolean screenshot) {
         for (int i = 0; i < game.getWidth(); i++) {
             for (int j = 0; j < game.getHeight(); j++) {
@@ -133,16 +211,17 @@ public class RenderService {
 
     private void renderBorder(final Graphics2D graphics2d, final Game game, final int boardX, final int boardY, final int squareSize) {
         graphics2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-        final Font font = Fonts.ROW_COLUMN_FONT;
+        final RenderProfile profile = game.getProfile();
+        final Font font = profile.scale(Fonts.ROW_COLUMN_FONT);
         graphics2d.setFont(font);
         final FontMetrics fontMetrics = graphics2d.getFontMetrics(font);
         final int ascent = fontMetrics.getAscent();
-        final int space = 10;
+        final int space = profile.scale(10);
         graphics2d.setColor(Color.BLACK);
         for (int row = 0; row < game.getHeight(); row++) {
             final int index = game.hasOppositeOrientation() ? game.getHeight() - 1 - row : row;
             final int yPos = boardY + (game.getHeight() - row) * squareSize - (squareSize - ascent) / 2;
-            graphics2d.drawString(Constants.getRow(index), boardX - 30, yPos);
+            graphics2d.drawString(Constants.getRow(index), boardX - profile.scale(30), yPos);
             graphics2d.drawString(Constants.getRow(index), boardX + game.getWidth() * squareSize + space, yPos);
         }
         for (int column = 0; column < game.getWidth(); column++) {
@@ -155,6 +234,13 @@ public class RenderService {
     }
 
     private void renderPieces(final Graphics2D graphics2d, final Game game, final Position position, final int yShift) {
+        // display moving pieces on top of others
+        for (final Piece movingPiece : renderRestingPieces(graphics2d, game, position, yShift)) {
+            renderPiece(graphics2d, game, movingPiece, yShift);
+        }
+    }
+
+    private List<Piece> renderRestingPieces(final Graphics2D graphics2d, final Game game, final Position position, final int yShift) {
         final Piece[][] pieceGrid = position.getPieceGrid();
         final List<Piece> movingPieces = new ArrayList<>();  // there could be more than one, e.g. castling
         for (int row = 0; row < game.getHeight(); row++) {
@@ -169,10 +255,7 @@ public class RenderService {
                 }
             }
         }
-        // display moving pieces on top of others
-        for (final Piece movingPiece : movingPieces) {
-            renderPiece(graphics2d, game, movingPiece, yShift);
-        }
+        return movingPieces;
     }
 
     private void renderPiece(final Graphics2D graphics2d, final Game game, final Piece piece, final int yShift) {
@@ -184,55 +267,194 @@ public class RenderService {
             int xPos = piece.getX();
             int yPos = piece.getY() + yShift;
             if (game.hasOppositeOrientation()) {
-                xPos = Constants.VIDEO_WIDTH - xPos - size;
-                yPos = Constants.VIDEO_HEIGHT - yPos - size;
+                xPos = game.getProfile().getVideoWidth() - xPos - size;
+                yPos = game.getProfile().getVideoHeight() - yPos - size;
             }
-            graphics2d.drawImage(game.getFromPieceMap(piece.getColor(), piece.getCode()), xPos, yPos, size, size, null);
+            graphics2d.drawImage(getSprite(game.getFromPieceMap(piece.getColor(), piece.getCode()), size), xPos, yPos, null);
+        }
+    }
+
+    private BufferedImage getSprite(final BufferedImage sprite, final int size) {
+        BufferedImage image = sprite;
+        if (sprite != null && (sprite.getWidth() != size || sprite.getHeight() != size)) {
+            final Map<Integer, BufferedImage> sizes = scaledSprites.computeIfAbsent(sprite, key -> new ConcurrentHashMap<>());
+            image = sizes.computeIfAbsent(size, key -> scaleSprite(sprite, size));
         }
+        return image;
+    }
+
+    private BufferedImage scaleSprite(final BufferedImage sprite, final int size) {
+        // the same nearest neighbor scaling drawImage would do on every frame, done once,
+        // copying the exact pixels (including alpha), so the frame is blended as before
+        final BufferedImage image = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+        final Graphics2D graphics2d = image.createGraphics();
+        graphics2d.setComposite(AlphaComposite.Src);
+        graphics2d.drawImage(sprite, 0, 0, size, size, null);
+        graphics2d.dispose();
+        return image;
     }
 
     public BufferedImage getRenderedImage(final Game game, final Position position, final List<Move> processedMoves) {
-        final BufferedImage image = new BufferedImage(Constants.VIDEO_WIDTH, Constants.VIDEO_HEIGHT, BufferedImage.TYPE_3BYTE_BGR);
+        // the frame is composed of three layers:
+        // - static layer (background, metadata, border), rendered once per game
+        // - board layer (squares, resting pieces, captured pieces, notation), rendered after each position change
+        // - dynamic layer (moving pieces), rendered for every frame
+        // the board layer covers the whole frame, so a leased image needs no clearing
+        final BufferedImage image = framePool.lease(game.getProfile().getVideoWidth(), game.getProfile().getVideoHeight());
+        copyLayer(getBoardLayer(game, position, processedMoves), image);
         final Graphics2D graphics2d = image.createGraphics();
-        graphics2d.setColor(Constants.BACKGROUND);
-        graphics2d.fillRect(0, 0, image.getWidth(), image.getHeight());
-        renderMetadata(graphics2d, game);
-        renderChessBoard(graphics2d, game, position, false);
-        renderCurrentMoveNotation(graphics2d, position);
-        renderNotationLine(graphics2d, processedMoves);
-        renderGameStatus(graphics2d, game, position);
+        renderMovingPieces(graphics2d, game, position);
+        graphics2d.dispose();
+        return image;
+    }
+
+    private BufferedImage getStaticLayer(final Game game) {
+        BufferedImage image = staticLayers.get(game);
+        if (image == null) {
+            image = new BufferedImage(game.getProfile().getVideoWidth(), game.getProfile().getVideoHeight(), BufferedImage.TYPE_3BYTE_BGR);
+            final Graphics2D graphics2d = image.createGraphics();
+            graphics2d.setColor(Constants.BACKGROUND);
+            graphics2d.fillRect(0, 0, image.getWidth(), image.getHeight());
+            renderMetadata(graphics2d, game);
+            renderBorder(graphics2d, game, Constants.getBoardX(game), Constants.getBoardY(game), Constants.getSquareSize(game));
+            graphics2d.dispose();
+            staticLayers.put(game, image);
+        }
         return image;
     }
 
+    private BufferedImage getBoardLayer(final Game game, final Position position, final List<Move> processedMoves) {
+        final int moveCount = processedMoves == null ? -1 : processedMoves.size();
+        BoardLayer layer = boardLayers.get(position);
+        if (layer == null || !layer.matches(game, position.getRevision(), moveCount)) {
+            final BufferedImage image = new BufferedImage(game.getProfile().getVideoWidth(), game.getProfile().getVideoHeight(),
+                    BufferedImage.TYPE_3BYTE_BGR);
+            copyLayer(getStaticLayer(game), image);
+            final Graphics2D graphics2d = image.createGraphics();
+            graphics2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            renderBoard(graphics2d, image, game, position, moveCount);
+            renderCapturedPieces(graphics2d, game, position, 0, true);
+            renderCurrentMoveNotation(graphics2d, game, position);
+            renderNotationLine(graphics2d, game, processedMoves);
+            renderGameStatus(graphics2d, game, position);
+            graphics2d.dispose();
+            layer = new BoardLayer(game, position.getRevision(), moveCount, image);
+            boardLayers.put(position, layer);
+        }
+        return layer.image();
+    }
+
+    private void renderBoard(final Graphics2D graphics2d, final BufferedImage image, final Game game, final Position position,
+                             final int moveCount) {
+        final int boardX = Constants.getBoardX(game);
+        final int boardY = Constants.getBoardY(game);
+        final int squareSize = Constants.getSquareSize(game);
+        final int width = game.getWidth() * squareSize;
+        final int height = game.getHeight() * squareSize;
+        // only settled boards are cached, moving pieces are left out of the board layer
+        final BoardKey key = boardCacheSize > 0 && !position.isMoving() ?
+                new BoardKey(position.getBoardHash(), game.getVariant(), game.getProfile(), game.getWidth(), game.getHeight(),
+                        game.hasOppositeOrientation(), game.getPieceMaps()) :
+                null;
+        final BoardRaster raster = key == null ? null : boardRasters.get(key);
+        if (raster == null) {
+            renderEmptyBoard(graphics2d, game, position, boardX, boardY, squareSize, false);
+            // wide labels (e.g. row 10) reach into the board, so repaint the border over the squares
+            graphics2d.setClip(boardX, boardY, width, height);
+            renderBorder(graphics2d, game, boardX, boardY, squareSize);
+            graphics2d.setClip(null);
+            renderRestingPieces(graphics2d, game, position, 0);
+            renderInvisibleSquares(graphics2d, game, position, boardX, boardY, squareSize);
+            if (key != null) {
+                final BufferedImage boardRaster = new BufferedImage(width, height, BufferedImage.TYPE_3BYTE_BGR);
+                copyRegion(image, boardX, boardY, boardRaster, 0, 0);
+                boardRasters.put(key, new BoardRaster(boardRaster, moveCount <= OPENING_MOVES));
+            }
+        } else {
+            copyRegion(raster.image(), 0, 0, image, boardX, boardY);
+        }
+    }
+
+    private void renderMovingPieces(final Graphics2D graphics2d, final Game game, final Position position) {
+        final Piece[][] pieceGrid = position.getPieceGrid();
+        final List<Piece> movingPieces = new ArrayList<>();
+        for (int row = 0; row < game.getHeight(); row++) {
+            for (int column = 0; column < game.getWidth(); column++) {
+                final Piece piece = pieceGrid[row][column];
+                if (piece != null && piece.isMoving()) {
+                    renderPiece(graphics2d, game, piece, 0);
+                    movingPieces.add(piece);
+                }
+            }
+        }
+        // moving pieces must not reveal invisible squares, the board layer already masks all the others
+        for (final Piece piece : movingPieces) {
+            renderInvisibleSquares(graphics2d, game, position, piece);
+        }
+        for (final Piece piece : position.getWhiteCapturedPieces()) {
+            if (piece.isMoving()) {
+                renderPiece(graphics2d, game, piece, Constants.getCapturedPieceSize(game), 0);
+            }
+        }
+        for (final Piece piece : position.getBlackCapturedPieces()) {
+            if (piece.isMoving()) {
+                renderPiece(graphics2d, game, piece, Constants.getCapturedPieceSize(game), 0);
+            }
+        }
+    }
+
+    private void copyLayer(final BufferedImage layer, final BufferedImage image) {
+        // both images are TYPE_3BYTE_BGR of the same size, so a plain array copy is enough
+        final byte[] source = ((DataBufferByte) layer.getRaster().getDataBuffer()).getData();
+        final byte[] target = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+        System.arraycopy(source, 0, target, 0, source.length);
+    }
+
+    private void copyRegion(final BufferedImage from, final int fromX, final int fromY,
+                            final BufferedImage to, final int toX, final int toY) {
+        // copies the smaller image into the bigger one or the other way round, row by row, both are TYPE_3BYTE_BGR
+        final byte[] source = ((DataBufferByte) from.getRaster().getDataBuffer()).getData();
+        final byte[] target = ((DataBufferByte) to.getRaster().getDataBuffer()).getData();
+        final int width = Math.min(from.getWidth() - fromX, to.getWidth() - toX);
+        final int height = Math.min(from.getHeight() - fromY, to.getHeight() - toY);
+        for (int row = 0; row < height; row++) {
+            System.arraycopy(source, ((fromY + row) * from.getWidth() + fromX) * 3,
+                    target, ((toY + row) * to.getWidth() + toX) * 3, width * 3);
+        }
+    }
+
     private void renderMetadata(final Graphics2D graphics2d, final Game game) {
         graphics2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-        final Font font = Fonts.METADATA_FONT;
+        final RenderProfile profile = game.getProfile();
+        final Font font = profile.scale(Fonts.METADATA_FONT);
         graphics2d.setFont(font);
         graphics2d.setColor(Color.BLACK);
         final FontMetrics fontMetrics = graphics2d.getFontMetrics(font);
         final String title = game.getSite() + " - " + game.getDate();
-        graphics2d.drawString(title, (Constants.VIDEO_WIDTH - fontMetrics.stringWidth(title)) / 2, fontMetrics.getHeight() + 20);
-        final String description = (StringUtils.isNotBlank(game.getVariant()) ? "Variant: " + game.getVariant() + ", " : "") +
+        graphics2d.drawString(title, (profile.getVideoWidth() - fontMetrics.stringWidth(title)) / 2, fontMetrics.getHeight() + profile.scale(20));
+        final String description = (StringUtils.isNotBlank(game.getVariantName()) ? "Variant: " + game.getVariantName() + ", " : "") +
                 "White: " + game.getWhite() + ", Black: " + game.getBlack() + ", Result: " + game.getResult();
-        graphics2d.drawString(description, (Constants.VIDEO_WIDTH - fontMetrics.stringWidth(description)) / 2, fontMetrics.getHeight() * 2 + 30);
+        graphics2d.drawString(description, (profile.getVideoWidth() - fontMetrics.stringWidth(description)) / 2,
+                fontMetrics.getHeight() * 2 + profile.scale(30));
     }
 
     @SuppressWarnings("PMD.LawOfDemeter")
-    private void renderCurrentMoveNotation(final Graphics2D graphics2d, final Position position) {
+    private void renderCurrentMoveNotation(final Graphics2D graphics2d, final Game game, final Position position) {
         final Notation notation = position.getCurrentMoveNotationDto();
         if (StringUtils.isNotBlank(notation.pgnCode())) {
+            final RenderProfile profile = game.getProfile();
             graphics2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-            final Font font = Fonts.RESULT_FONT;
+            final Font font = profile.scale(Fonts.RESULT_FONT);
             graphics2d.setFont(font);
             graphics2d.setColor(Color.BLACK);
             final FontMetrics fontMetrics = graphics2d.getFontMetrics(font);
             final String fullNotation = notation.pgnCode() + (notation.result() == null ? "" : notation.result());
-            int xPos = (Constants.VIDEO_WIDTH - fontMetrics.stringWidth(fullNotation)) / 2;
-            final int yPos = Constants.VIDEO_HEIGHT - fontMetrics.getHeight() - 30;
+            int xPos = (profile.getVideoWidth() - fontMetrics.stringWidth(fullNotation)) / 2;
+            final int yPos = profile.getVideoHeight() - fontMetrics.getHeight() - profile.scale(30);
             graphics2d.drawString(notation.prefix(), xPos, yPos);
             xPos += fontMetrics.stringWidth(notation.prefix());
             if (StringUtils.isNotBlank(notation.symbol())) {
-                final Font symbolFont = Fonts.SYMBOL_FONT;
+                final Font symbolFont = profile.scale(Fonts.SYMBOL_FONT);
                 graphics2d.setFont(symbolFont);
                 final FontMetrics symbolFontMetrics = graphics2d.getFontMetrics(symbolFont);
                 graphics2d.drawString(notation.symbol(), xPos, yPos);
@@ -247,20 +469,21 @@ public class RenderService {
         }
     }
 
-    private void renderNotationLine(final Graphics2D graphics2d, final List<Move> processedMoves) {
+    private void renderNotationLine(final Graphics2D graphics2d, final Game game, final List<Move> processedMoves) {
         if (processedMoves != null) {
             graphics2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-            final Font font = Fonts.LINE_FONT;
+            final Font font = game.getProfile().scale(Fonts.LINE_FONT);
             graphics2d.setFont(font);
             graphics2d.setColor(Color.BLACK);
-            renderNotation(graphics2d, font, processedMoves);
+            renderNotation(graphics2d, game.getProfile(), font, processedMoves);
         }
     }
 
-    private void renderNotation(final Graphics2D graphics2d, final Font font, final List<Move> processedMoves) {
+    private void renderNotation(final Graphics2D graphics2d, final RenderProfile profile, final Font font, final List<Move> processedMoves) {
         final FontMetrics fontMetrics = graphics2d.getFontMetrics(font);
-        int xPos = 15;
-        int yPos = Constants.VIDEO_HEIGHT - fontMetrics.getHeight() - fontMetrics.getHeight() - 10;
+        final int margin = profile.scale(15);
+        int xPos = margin;
+        int yPos = profile.getVideoHeight() - fontMetrics.getHeight() - fontMetrics.getHeight() - profile.scale(10);
         for (final Move move : processedMoves) {
             String code = move.getPgnCode();
             if (StringUtils.isNotBlank(code)) {
@@ -270,9 +493,9 @@ public class RenderService {
                     code = builder.toString();
                 }
                 graphics2d.drawString(code, xPos, yPos);
-                xPos += fontMetrics.stringWidth(code) + 5;
+                xPos += fontMetrics.stringWidth(code) + profile.scale(5);
                 if (!move.isWhite() && (move.getMoveNumber() == 15 || move.getMoveNumber() == 29)) {
-                    xPos = 15;
+                    xPos = margin;
                     yPos += fontMetrics.getHeight();
                 }
             }
@@ -283,12 +506,12 @@ public class RenderService {
         final String gameStatus = position.getGameStatus();
         if (StringUtils.isNotBlank(gameStatus)) {
             graphics2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-            final Font font = Fonts.RESULT_FONT;
+            final Font font = game.getProfile().scale(Fonts.RESULT_FONT);
             graphics2d.setFont(font);
             graphics2d.setColor(Color.BLACK);
             final FontMetrics fontMetrics = graphics2d.getFontMetrics(font);
             final int xPos = Constants.getBoardX(game);
-            final int yPos = Constants.VIDEO_HEIGHT - fontMetrics.getHeight() - 20;
+            final int yPos = game.getProfile().getVideoHeight() - fontMetrics.getHeight() - game.getProfile().scale(20);
             graphics2d.drawString(gameStatus, xPos, yPos);
         }
     }
@@ -307,4 +530,51 @@ public class RenderService {
         graphics2d.fill(square);
     }
 
+    private record BoardKey(long hash, Variant variant, RenderProfile profile, int width, int height, boolean oppositeOrientation,
+                            List<Map<String, BufferedImage>> pieceMaps) {
+    }
+
+    private record BoardRaster(BufferedImage image, boolean opening) {
+    }
+
+    private static final class RasterMap extends LinkedHashMap<BoardKey, BoardRaster> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int maxSize;
+
+        RasterMap(final int maxSize) {
+            super(16, 0.75f, true);
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<BoardKey, BoardRaster> eldest) {
+            // opening boards are shared by many games, so the least recently used later board goes first,
+            // and only when there is none, the least recently used opening board
+            boolean removeEldest = false;
+            if (size() > maxSize) {
+                final Iterator<BoardRaster> iterator = values().iterator();
+                boolean removed = false;
+                while (iterator.hasNext() && !removed) {
+                    if (!iterator.next().opening()) {
+                        iterator.remove();
+                        removed = true;
+                    }
+                }
+                removeEldest = !removed;
+            }
+            return removeEldest;
+        }
+
+    }
+
+    private record BoardLayer(Game game, int revision, int moveCount, BufferedImage image) {
+
+        private boolean matches(final Game game, final int revision, final int moveCount) {
+            return this.game == game && this.revision == revision && this.moveCount == moveCount;
+        }
+
+    }
+
 }
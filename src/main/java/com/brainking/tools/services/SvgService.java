@@ -1,11 +1,26 @@
 package com.brainking.tools.services;
 
 import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.zip.CRC32;
+
+import javax.imageio.ImageIO;
+
+import jakarta.annotation.PreDestroy;
 
 import org.apache.batik.anim.dom.SVGDOMImplementation;
 import org.apache.batik.transcoder.TranscoderException;
@@ -14,8 +29,13 @@ import org.apache.batik.transcoder.TranscoderOutput;
 import org.apache.batik.transcoder.TranscodingHints;
 import org.apache.batik.transcoder.image.ImageTranscoder;
 import org.apache.batik.util.SVGConstants;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 @Service
@@ -24,6 +44,36 @@ public final class SvgService {
 
     private static final Logger LOG = LoggerFactory.getLogger(SvgService.class);
     private static final String FOLDER = "/images/chess/";
+    private static final String NEUTRAL_FOLDER = "/images/neutral/";
+    private static final String CSS_RESOURCE = "/css/batik-default-override-.css";
+
+    // rasterized sprites keyed by SVG resource (which includes the colour) and size,
+    // kept in memory for the whole batch and on disk (next to the videos unless configured, blank disables it)
+    // for the next runs
+    private final Map<String, BufferedImage> spriteCache;
+    private final String spriteFolder;
+    // the stylesheet changes every sprite, so it is part of the checksum in the name of every cached file
+    private final byte[] styleData;
+    private final Map<Float, TranscodingHints> transcodingHintsCache = new ConcurrentHashMap<>();
+    // transcodes the sprites of a map in parallel, only created when more than one thread is configured
+    private final ForkJoinPool transcodePool;
+
+    @Autowired
+    public SvgService(@Value("${sprite.cache.size:64}") final int spriteCacheSize,
+                      @Value("${sprite.cache.folder:${target.folder}/.sprites}") final String spriteCacheFolder,
+                      @Value("${sprite.transcode.threads:4}") final int transcodeThreads) {
+        this.spriteCache = Collections.synchronizedMap(new SpriteMap(spriteCacheSize));
+        this.spriteFolder = spriteCacheFolder;
+        this.styleData = readResource(CSS_RESOURCE);
+        this.transcodePool = transcodeThreads > 1 ? new ForkJoinPool(transcodeThreads) : null;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (transcodePool != null) {
+            transcodePool.shutdown();
+        }
+    }
 
     private BufferedImage getImageFromSvg(final InputStream svgFileStream, final int squareSize) {
         final BufferedImage[] bufferedImage = new BufferedImage[1];
@@ -50,7 +100,16 @@ public final class SvgService {
     }
 
     private TranscodingHints getTranscodingHints(final float squareSize) throws URISyntaxException {
-        final URI cssUri = getClass().getResource("/css/batik-default-override-.css").toURI();
+        TranscodingHints transcodingHints = transcodingHintsCache.get(squareSize);
+        if (transcodingHints == null) {
+            transcodingHints = createTranscodingHints(squareSize);
+            transcodingHintsCache.put(squareSize, transcodingHints);
+        }
+        return transcodingHints;
+    }
+
+    private TranscodingHints createTranscodingHints(final float squareSize) throws URISyntaxException {
+        final URI cssUri = getClass().getResource(CSS_RESOURCE).toURI();
         final TranscodingHints transcodingHints = new TranscodingHints();
         transcodingHints.put(ImageTranscoder.KEY_XML_PARSER_VALIDATING, Boolean.FALSE);
         transcodingHints.put(ImageTranscoder.KEY_DOM_IMPLEMENTATION,
@@ -68,13 +127,101 @@ public final class SvgService {
 
     public Map<String, BufferedImage> getBufferedImageMap(final Map<String, String> imageResourceMap, final int squareSize) {
         final Map<String, BufferedImage> map = new HashMap<>();
-        for (final Map.Entry<String, String> entry : imageResourceMap.entrySet()) {
-            LOG.info("Loading " + entry.getValue());
-            map.put(entry.getKey(), getImageFromSvg(getClass().getResourceAsStream(entry.getValue()), squareSize));
+        if (transcodePool == null) {
+            for (final Map.Entry<String, String> entry : imageResourceMap.entrySet()) {
+                map.put(entry.getKey(), getSprite(entry.getValue(), squareSize));
+            }
+        } else {
+            // sprites are loaded in parallel, every transcode has its own transcoder and only shares the read-only hints
+            final Map<String, ForkJoinTask<BufferedImage>> tasks = new HashMap<>();
+            for (final Map.Entry<String, String> entry : imageResourceMap.entrySet()) {
+                tasks.put(entry.getKey(), transcodePool.submit(() -> getSprite(entry.getValue(), squareSize)));
+            }
+            for (final Map.Entry<String, ForkJoinTask<BufferedImage>> entry : tasks.entrySet()) {
+                map.put(entry.getKey(), entry.getValue().join());
+            }
         }
         return map;
     }
 
+    private BufferedImage getSprite(final String resource, final int squareSize) {
+        final String key = resource + "@" + squareSize;
+        BufferedImage image = spriteCache.get(key);
+        if (image == null) {
+            final byte[] svgData = readResource(resource);
+            final File spriteFile = getSpriteFile(resource, squareSize, svgData);
+            image = readSprite(spriteFile);
+            if (image == null) {
+                LOG.info("Loading " + resource);
+                image = getImageFromSvg(new ByteArrayInputStream(svgData), squareSize);
+                writeSprite(image, spriteFile);
+            }
+            if (image != null) {
+                spriteCache.put(key, image);
+            }
+        }
+        return image;
+    }
+
+    private File getSpriteFile(final String resource, final int squareSize, final byte[] svgData) {
+        File file = null;
+        if (StringUtils.isNotBlank(spriteFolder) && svgData.length > 0) {
+            // an edited SVG or stylesheet gets a new file name, so an outdated sprite is never read again
+            final CRC32 checksum = new CRC32();
+            checksum.update(styleData);
+            checksum.update(svgData);
+            file = new File(spriteFolder, FilenameUtils.getBaseName(resource) + "-" + squareSize + "-" +
+                    Long.toHexString(checksum.getValue()) + ".png");
+        }
+        return file;
+    }
+
+    private byte[] readResource(final String resource) {
+        // a missing resource gives no data, its sprite then fails to transcode as before
+        byte[] data = new byte[0];
+        try (InputStream inputStream = getClass().getResourceAsStream(resource)) {
+            if (inputStream != null) {
+                data = inputStream.readAllBytes();
+            }
+        } catch (IOException ex) {
+            LOG.error("Error reading " + resource + ".", ex);
+        }
+        return data;
+    }
+
+    private BufferedImage readSprite(final File spriteFile) {
+        BufferedImage image = null;
+        if (spriteFile != null && spriteFile.isFile()) {
+            try {
+                final BufferedImage png = ImageIO.read(spriteFile);
+                if (png != null) {
+                    // copy the pixels into the same image type as the transcoder creates, so the frames are drawn exactly the same way
+                    final int width = png.getWidth();
+                    final int height = png.getHeight();
+                    image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+                    image.setRGB(0, 0, width, height, png.getRGB(0, 0, width, height, null, 0, width), 0, width);
+                }
+            } catch (IOException ex) {
+                LOG.error("Error reading the cached sprite.", ex);
+            }
+        }
+        return image;
+    }
+
+    private void writeSprite(final BufferedImage image, final File spriteFile) {
+        if (image != null && spriteFile != null) {
+            try {
+                FileUtils.forceMkdir(spriteFile.getParentFile());
+                // games rendered in parallel may write the same sprite, so replace the file in one step
+                final File tempFile = File.createTempFile("sprite", ".tmp", spriteFile.getParentFile());
+                ImageIO.write(image, "png", tempFile);
+                Files.move(tempFile.toPath(), spriteFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException ex) {
+                LOG.error("Error writing the cached sprite.", ex);
+            }
+        }
+    }
+
     public Map<String, String> getImageResourceMap(final String prefix) {
         final Map<String, String> map = new HashMap<>();
         map.put("K", FOLDER + prefix + "King.svg");
@@ -89,4 +236,30 @@ public final class SvgService {
         return map;
     }
 
+    public Map<String, String> getNeutralImageResourceMap() {
+        final Map<String, String> map = new HashMap<>();
+        map.put("i", NEUTRAL_FOLDER + "IceCube.svg");
+        map.put("b", NEUTRAL_FOLDER + "Behemoth.svg");
+        return map;
+    }
+
+    private static final class SpriteMap extends LinkedHashMap<String, BufferedImage> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int maxSize;
+
+        SpriteMap(final int maxSize) {
+            super(16, 0.75f, true);
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<String, BufferedImage> eldest) {
+            // least recently used sprite goes first
+            return size() > maxSize;
+        }
+
+    }
+
 }
@@ -2,21 +2,78 @@ package com.brainking.tools.services.utils;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.jcodec.api.awt.AWTSequenceEncoder;
 import org.springframework.stereotype.Service;
 
 import ws.schild.jave.Encoder;
+import ws.schild.jave.process.ffmpeg.DefaultFFMPEGLocator;
 
 @Service
 public class EncoderCoreService {
 
-    public AWTSequenceEncoder createMovEncoder(final String videoFolder, final String videoName) throws IOException {
-        return AWTSequenceEncoder.create25Fps(new File(videoFolder, videoName + ".mov"));
+    public AWTSequenceEncoder createMovEncoder(final String videoFolder, final String videoName, final int frameRate) throws IOException {
+        return AWTSequenceEncoder.createSequenceEncoder(new File(videoFolder, videoName + ".mov"), frameRate);
+    }
+
+    public OutputStream createRawOutput(final String videoFolder, final String videoName) throws IOException {
+        return Files.newOutputStream(new File(videoFolder, videoName + ".bgr").toPath());
     }
 
     public Encoder createMP4Encoder() {
         return new Encoder();
     }
 
+    public void concatVideos(final List<File> videos, final File target) throws IOException {
+        // the concat demuxer copies the streams one after another, nothing is encoded again
+        final File videoList = new File(target.getParentFile(), target.getName() + ".txt");
+        final List<String> lines = new ArrayList<>();
+        for (final File video : videos) {
+            lines.add("file '" + video.getAbsolutePath().replace("'", "'\\''") + "'");
+        }
+        Files.write(videoList.toPath(), lines);
+        try {
+            final Process process = startFFmpegProcess(List.of(
+                    "-y", "-loglevel", "error",
+                    "-f", "concat", "-safe", "0",
+                    "-i", videoList.getPath(),
+                    "-c", "copy",
+                    "-movflags", "+faststart",
+                    target.getPath()));
+            process.getOutputStream().close();
+            final int exitCode = process.waitFor();
+            if (exitCode != 0) {
+                throw new IOException("FFmpeg finished with exit code " + exitCode);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for FFmpeg.", ex);
+        } finally {
+            Files.delete(videoList.toPath());
+        }
+    }
+
+    public void appendFiles(final List<File> files, final File target) throws IOException {
+        try (OutputStream outputStream = Files.newOutputStream(target.toPath())) {
+            for (final File file : files) {
+                Files.copy(file.toPath(), outputStream);
+            }
+        }
+    }
+
+    public Process startFFmpegProcess(final List<String> arguments) throws IOException {
+        // use the FFmpeg binary bundled with JAVE
+        final List<String> command = new ArrayList<>();
+        command.add(new DefaultFFMPEGLocator().getExecutablePath());
+        command.addAll(arguments);
+        return new ProcessBuilder(command)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+    }
+
 }
@@ -62,7 +62,7 @@ public class Constants {
     }
 
     public static int getSquareSize(final Game game) {
-        return BOARD_SIZE / Math.max(game.getWidth(), game.getHeight());
+        return game.getProfile().scale(BOARD_SIZE) / Math.max(game.getWidth(), game.getHeight());
     }
 
     public static int getCapturedPieceSize(final Game game) {
@@ -70,15 +70,15 @@ public class Constants {
     }
 
     public static int getBoardX(final Game game) {
-        return VIDEO_WIDTH / 2 - getSquareSize(game) * game.getWidth() / 2;
+        return game.getProfile().getVideoWidth() / 2 - getSquareSize(game) * game.getWidth() / 2;
     }
 
     public static int getBoardY(final Game game) {
-        return VIDEO_HEIGHT / 2 - getSquareSize(game) * game.getHeight() / 2;
+        return game.getProfile().getVideoHeight() / 2 - getSquareSize(game) * game.getHeight() / 2;
     }
 
     public static int getScreenshotBoardY(final Game game) {
-        return SCREENSHOT_HEIGHT / 2 - getSquareSize(game) * game.getHeight() / 2;
+        return game.getProfile().scale(SCREENSHOT_HEIGHT) / 2 - getSquareSize(game) * game.getHeight() / 2;
     }
 
 }
@@ -0,0 +1,50 @@
+package com.brainking.tools.video;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+
+import org.jcodec.common.model.ColorSpace;
+import org.jcodec.common.model.Picture;
+import org.jcodec.scale.AWTUtil;
+
+final class BgrPictureConverter {
+
+    private static final int CHANNELS = 3;
+    // jcodec keeps samples as signed bytes shifted by -128, flipping the top bit does the same
+    private static final int SIGN_BIT = 0x80;
+    private static final byte[] NO_DATA = new byte[0];
+
+    // the RGB picture of the previous frame, overwritten by the next conversion
+    private Picture picture;
+
+    Picture convert(final BufferedImage image) {
+        final int width = image.getWidth();
+        final int height = image.getHeight();
+        if (picture == null || picture.getWidth() != width || picture.getHeight() != height) {
+            picture = Picture.create(width, height, ColorSpace.RGB);
+        }
+        final byte[] target = picture.getPlaneData(0);
+        final byte[] source = getBgrData(image);
+        if (source.length == target.length) {
+            // one pass over the backing array of the frame, swapping blue and red
+            for (int i = 0; i < source.length; i += CHANNELS) {
+                target[i] = (byte) (source[i + 2] ^ SIGN_BIT);
+                target[i + 1] = (byte) (source[i + 1] ^ SIGN_BIT);
+                target[i + 2] = (byte) (source[i] ^ SIGN_BIT);
+            }
+        } else {
+            // other image types (or sub-images) go the generic AWT way
+            AWTUtil.fromBufferedImage(image, picture);
+        }
+        return picture;
+    }
+
+    private static byte[] getBgrData(final BufferedImage image) {
+        byte[] data = NO_DATA;
+        if (image.getType() == BufferedImage.TYPE_3BYTE_BGR) {
+            data = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+        }
+        return data;
+    }
+
+}
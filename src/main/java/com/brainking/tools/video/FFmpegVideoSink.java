@@ -0,0 +1,39 @@
+package com.brainking.tools.video;
+
+import java.io.IOException;
+
+public class FFmpegVideoSink extends RawVideoSink {
+
+    private final Process process;
+
+    public FFmpegVideoSink(final Process process, final int width, final int height) {
+        this(process, width, height, new FramePool(0));
+    }
+
+    public FFmpegVideoSink(final Process process, final int width, final int height, final FramePool framePool) {
+        // raw frames are piped to the standard input of FFmpeg, x264 stores the repeated frames as skipped frames,
+        // which keeps the file small but every repeat is still piped and analysed
+        super(process.getOutputStream(), width, height, framePool);
+        this.process = process;
+    }
+
+    @Override
+    public void finish() throws IOException {
+        super.finish();
+        try {
+            final int exitCode = process.waitFor();
+            if (exitCode != 0) {
+                throw new IOException("FFmpeg finished with exit code " + exitCode);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for FFmpeg.", ex);
+        }
+    }
+
+    @Override
+    public boolean isMP4() {
+        return true;
+    }
+
+}
@@ -0,0 +1,45 @@
+package com.brainking.tools.video;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+public class FrameBatch implements VideoSink {
+
+    private final List<Frame> frames = new ArrayList<>();
+
+    @Override
+    public void encodeImage(final BufferedImage image) {
+        frames.add(new Frame(image, 1));
+    }
+
+    @Override
+    public void encodeImage(final BufferedImage image, final int frames) {
+        this.frames.add(new Frame(image, frames));
+    }
+
+    @Override
+    public void finish() {
+        // frames are kept until they are passed to another sink
+    }
+
+    @Override
+    public boolean isMP4() {
+        return false;
+    }
+
+    public void encodeTo(final VideoSink videoSink) throws IOException {
+        for (final Frame frame : frames) {
+            if (frame.frames() == 1) {
+                videoSink.encodeImage(frame.image());
+            } else {
+                videoSink.encodeImage(frame.image(), frame.frames());
+            }
+        }
+    }
+
+    private record Frame(BufferedImage image, int frames) {
+    }
+
+}
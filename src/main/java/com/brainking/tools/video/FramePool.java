@@ -0,0 +1,64 @@
+package com.brainking.tools.video;
+
+import java.awt.image.BufferedImage;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+@Service
+public final class FramePool {
+
+    // free TYPE_3BYTE_BGR images per size (video frames, screenshots), each queue holds at most maxIdle images
+    private final Map<Integer, Queue<BufferedImage>> idleImages = new ConcurrentHashMap<>();
+    private final int maxIdle;
+    private final AtomicInteger allocatedImages = new AtomicInteger();
+
+    @Autowired
+    public FramePool(@Value("${render.frame.pool.size:16}") final int maxIdle) {
+        this.maxIdle = maxIdle;
+    }
+
+    public BufferedImage lease(final int width, final int height) {
+        // the content of a leased image is undefined, the renderer paints over every pixel
+        BufferedImage image = null;
+        final Queue<BufferedImage> queue = getQueue(width, height);
+        if (queue != null) {
+            image = queue.poll();
+        }
+        if (image == null) {
+            image = new BufferedImage(width, height, BufferedImage.TYPE_3BYTE_BGR);
+            allocatedImages.incrementAndGet();
+        }
+        return image;
+    }
+
+    public void release(final BufferedImage image) {
+        // called by the last consumer of a frame, e.g. the encoder after writing it, and possibly from another thread,
+        // when the pool is full the image is left to the garbage collector
+        if (image != null && image.getType() == BufferedImage.TYPE_3BYTE_BGR) {
+            final Queue<BufferedImage> queue = getQueue(image.getWidth(), image.getHeight());
+            if (queue != null) {
+                queue.offer(image);
+            }
+        }
+    }
+
+    public int getAllocatedImages() {
+        return allocatedImages.get();
+    }
+
+    private Queue<BufferedImage> getQueue(final int width, final int height) {
+        Queue<BufferedImage> queue = null;
+        if (maxIdle > 0) {
+            queue = idleImages.computeIfAbsent(width << 16 | height, key -> new ArrayBlockingQueue<>(maxIdle));
+        }
+        return queue;
+    }
+
+}
@@ -0,0 +1,54 @@
+package com.brainking.tools.video;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+
+import org.jcodec.api.awt.AWTSequenceEncoder;
+import org.jcodec.common.model.Picture;
+
+public class JcodecVideoSink implements VideoSink {
+
+    private final AWTSequenceEncoder encoder;
+    private final FramePool framePool;
+    // the frames are converted straight from their BGR bytes into one reused RGB picture
+    private final BgrPictureConverter converter = new BgrPictureConverter();
+
+    public JcodecVideoSink(final AWTSequenceEncoder encoder) {
+        this(encoder, new FramePool(0));
+    }
+
+    public JcodecVideoSink(final AWTSequenceEncoder encoder, final FramePool framePool) {
+        this.encoder = encoder;
+        this.framePool = framePool;
+    }
+
+    @Override
+    public void encodeImage(final BufferedImage image) throws IOException {
+        final Picture picture = converter.convert(image);
+        // the frame has been converted, the renderer can use the image again
+        framePool.release(image);
+        encoder.encodeNativeFrame(picture);
+    }
+
+    @Override
+    public void encodeImage(final BufferedImage image, final int frames) throws IOException {
+        // the hold only saves the conversion, the image is converted once but jcodec has no frame durations
+        // and still runs a full H.264 encode for every repeated frame
+        final Picture picture = converter.convert(image);
+        framePool.release(image);
+        for (int i = 0; i < frames; i++) {
+            encoder.encodeNativeFrame(picture);
+        }
+    }
+
+    @Override
+    public void finish() throws IOException {
+        encoder.finish();
+    }
+
+    @Override
+    public boolean isMP4() {
+        return false;
+    }
+
+}
@@ -0,0 +1,188 @@
+package com.brainking.tools.video;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public final class PipelinedVideoSink implements VideoSink {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PipelinedVideoSink.class);
+    private static final Frame END = new Frame(null, 0);
+
+    private final VideoSink videoSink;
+    private final FramePool framePool;
+    private final BlockingQueue<Frame> queue;
+    private final Thread encoderThread;
+    private final long startTime;
+
+    // stage timing, written by a single thread each and read after the encoder thread has been joined
+    private long renderWaitNanos;
+    private long encodeNanos;
+    private long encoderWaitNanos;
+    private int encodedFrames;
+    // any failure of the encoder stage, including unchecked ones, so the renderer never waits for a dead encoder
+    private volatile Throwable failure;
+
+    public PipelinedVideoSink(final VideoSink videoSink, final int capacity, final FramePool framePool) {
+        this.videoSink = videoSink;
+        this.framePool = framePool;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.startTime = System.nanoTime();
+        this.encoderThread = new Thread(this::encodeFrames, "video-encoder");
+        // a game that fails while rendering never calls finish, the idle encoder must not keep the JVM alive
+        encoderThread.setDaemon(true);
+        // the handler runs before the thread terminates, so a dead encoder always leaves its failure behind
+        encoderThread.setUncaughtExceptionHandler((thread, ex) -> failure = ex);
+        encoderThread.start();
+    }
+
+    @Override
+    public void encodeImage(final BufferedImage image) throws IOException {
+        encodeImage(image, 1);
+    }
+
+    @Override
+    public void encodeImage(final BufferedImage image, final int frames) throws IOException {
+        if (failure != null) {
+            framePool.release(image);
+        }
+        checkFailure();
+        put(new Frame(image, frames));
+    }
+
+    @Override
+    public void finish() throws IOException {
+        put(END);
+        try {
+            encoderThread.join();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for the encoder.", ex);
+        }
+        checkFailure();
+        videoSink.finish();
+        final long totalNanos = System.nanoTime() - startTime;
+        LOG.info("Pipeline: " + encodedFrames + " frames in " + TimeUnit.NANOSECONDS.toMillis(totalNanos) + " ms, " +
+                "render " + TimeUnit.NANOSECONDS.toMillis(getRenderNanos()) + " ms (waited for encoder " +
+                TimeUnit.NANOSECONDS.toMillis(renderWaitNanos) + " ms), " +
+                "encode " + TimeUnit.NANOSECONDS.toMillis(encodeNanos) + " ms (waited for frames " +
+                TimeUnit.NANOSECONDS.toMillis(encoderWaitNanos) + " ms)");
+    }
+
+    @Override
+    public boolean isMP4() {
+        return videoSink.isMP4();
+    }
+
+    public int getEncodedFrames() {
+        return encodedFrames;
+    }
+
+    // time spent by the render stage outside of the sink, i.e. producing frames
+    public long getRenderNanos() {
+        return System.nanoTime() - startTime - renderWaitNanos;
+    }
+
+    // time the render stage was blocked because the buffer was full (encoder is the bottleneck)
+    public long getRenderWaitNanos() {
+        return renderWaitNanos;
+    }
+
+    // time the encoder stage spent encoding
+    public long getEncodeNanos() {
+        return encodeNanos;
+    }
+
+    // time the encoder stage was idle because the buffer was empty (renderer is the bottleneck)
+    public long getEncoderWaitNanos() {
+        return encoderWaitNanos;
+    }
+
+    private void put(final Frame frame) throws IOException {
+        final long start = System.nanoTime();
+        try {
+            // the encoder stops taking frames after a failure, so do not wait for free space forever
+            while (!queue.offer(frame, 100, TimeUnit.MILLISECONDS)) {
+                if (failure == null && !encoderThread.isAlive()) {
+                    failure = new IOException("The encoder has stopped.");
+                }
+                if (failure != null) {
+                    // the frame never reaches the encoder, so it goes back to the pool here
+                    framePool.release(frame.image());
+                    checkFailure();
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while passing a frame to the encoder.", ex);
+        }
+        renderWaitNanos += System.nanoTime() - start;
+    }
+
+    private void checkFailure() throws IOException {
+        if (failure != null) {
+            // frames queued after the encoder drained the buffer are released by the renderer
+            releaseQueuedFrames();
+            throw new IOException("Error encoding the video.", failure);
+        }
+    }
+
+    private void encodeFrames() {
+        try {
+            Frame frame = take();
+            while (frame != END && failure == null) {
+                encode(frame);
+                frame = take();
+            }
+            // after a failure the frame taken last is not encoded either
+            framePool.release(frame.image());
+            releaseQueuedFrames();
+        } catch (InterruptedException ex) {
+            failure = new IOException("Encoder interrupted.", ex);
+            releaseQueuedFrames();
+        }
+    }
+
+    private void releaseQueuedFrames() {
+        // the frames left after a failure are never encoded, hand their images back to the pool
+        Frame frame = queue.poll();
+        while (frame != null) {
+            framePool.release(frame.image());
+            frame = queue.poll();
+        }
+    }
+
+    private Frame take() throws InterruptedException {
+        final long start = System.nanoTime();
+        final Frame frame = queue.take();
+        encoderWaitNanos += System.nanoTime() - start;
+        return frame;
+    }
+
+    @SuppressWarnings("PMD.AvoidCatchingGenericException")
+    private void encode(final Frame frame) {
+        final long start = System.nanoTime();
+        try {
+            if (frame.frames() == 1) {
+                videoSink.encodeImage(frame.image());
+            } else {
+                videoSink.encodeImage(frame.image(), frame.frames());
+            }
+            encodedFrames += frame.frames();
+        } catch (IOException | RuntimeException ex) {
+            // e.g. jcodec or the picture conversion failing, the renderer has to learn about it as well
+            LOG.error("Error encoding the frame.", ex);
+            failure = ex;
+        }
+        encodeNanos += System.nanoTime() - start;
+    }
+
+    private record Frame(BufferedImage image, int frames) {
+    }
+
+}
@@ -0,0 +1,64 @@
+package com.brainking.tools.video;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.io.IOException;
+import java.io.OutputStream;
+
+public class RawVideoSink implements VideoSink {
+
+    private final OutputStream outputStream;
+    private final int width;
+    private final int height;
+    private final FramePool framePool;
+
+    public RawVideoSink(final OutputStream outputStream, final int width, final int height, final FramePool framePool) {
+        this.outputStream = outputStream;
+        this.width = width;
+        this.height = height;
+        this.framePool = framePool;
+    }
+
+    @Override
+    public void encodeImage(final BufferedImage image) throws IOException {
+        outputStream.write(getBgrData(image));
+        // the pixels have been written out, the renderer can use the image again
+        framePool.release(image);
+    }
+
+    @Override
+    public void encodeImage(final BufferedImage image, final int frames) throws IOException {
+        // the hold only saves the conversion, the raw stream has no frame durations, so every repeated frame
+        // is written out (and, piped to FFmpeg, analysed by x264 before it becomes a skipped frame)
+        final byte[] data = getBgrData(image);
+        for (int i = 0; i < frames; i++) {
+            outputStream.write(data);
+        }
+        framePool.release(image);
+    }
+
+    @Override
+    public void finish() throws IOException {
+        outputStream.close();
+    }
+
+    @Override
+    public boolean isMP4() {
+        // the dump can be encoded later with: ffmpeg -f rawvideo -pix_fmt bgr24 -s <width>x<height> -r <frame rate> -i <file>
+        return false;
+    }
+
+    private byte[] getBgrData(final BufferedImage image) {
+        BufferedImage bgrImage = image;
+        if (image.getType() != BufferedImage.TYPE_3BYTE_BGR || image.getWidth() != width || image.getHeight() != height) {
+            bgrImage = new BufferedImage(width, height, BufferedImage.TYPE_3BYTE_BGR);
+            final Graphics2D graphics2d = bgrImage.createGraphics();
+            graphics2d.drawImage(image, 0, 0, width, height, null);
+            graphics2d.dispose();
+        }
+        // the raster of TYPE_3BYTE_BGR images is exactly the bgr24 pixel format, so it can be written as it is
+        return ((DataBufferByte) bgrImage.getRaster().getDataBuffer()).getData();
+    }
+
+}
@@ -0,0 +1,33 @@
+package com.brainking.tools.video;
+
+public enum VideoBackend {
+
+    // MOV written by jcodec, converted to MP4 when finished
+    JCODEC("mov"),
+    // raw frames piped into a single x264 encode
+    FFMPEG("mp4"),
+    // bgr24 frames dumped to a file without encoding, to measure the renderer alone
+    RAW("bgr");
+
+    private final String extension;
+
+    VideoBackend(final String extension) {
+        this.extension = extension;
+    }
+
+    public static VideoBackend fromName(final String name) {
+        // unknown names keep the jcodec default
+        VideoBackend result = JCODEC;
+        for (final VideoBackend backend : values()) {
+            if (backend.name().equalsIgnoreCase(name.trim())) {
+                result = backend;
+            }
+        }
+        return result;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+}
@@ -0,0 +1,19 @@
+package com.brainking.tools.video;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+
+public interface VideoSink {
+
+    // the sink owns the image after the call, the last sink in the chain may release it to the frame pool
+    void encodeImage(BufferedImage image) throws IOException;
+
+    // hold the image on screen for the given number of frames
+    void encodeImage(BufferedImage image, int frames) throws IOException;
+
+    void finish() throws IOException;
+
+    // true if the sink writes the final MP4 file, false if the output has to be converted
+    boolean isMP4();
+
+}
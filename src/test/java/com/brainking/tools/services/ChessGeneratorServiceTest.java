@@ -4,22 +4,29 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
-import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 
-import org.jcodec.api.awt.AWTSequenceEncoder;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import com.brainking.tools.dto.Color;
 import com.brainking.tools.dto.Game;
+import com.brainking.tools.dto.Move;
 import com.brainking.tools.dto.Position;
+import com.brainking.tools.dto.RenderProfile;
+import com.brainking.tools.utils.Constants;
+import com.brainking.tools.video.VideoSink;
 
 class ChessGeneratorServiceTest {
 
@@ -40,15 +47,20 @@ class ChessGeneratorServiceTest {
         youTubeService = mock(YouTubeService.class);
         encoderService = mock(EncoderService.class);
         fileService = mock(FileService.class);
-        chessGeneratorService = new ChessGeneratorService(renderService, positionService, importService, youTubeService, encoderService, fileService, "source", "target", false, true);
+        chessGeneratorService = createService(1, 1, 1);
+        final String[] extensions = {"pgn"};
+        doReturn(List.of(new File("file"))).when(fileService).getSourceFiles(any(File.class), eq(extensions));
+        doReturn(Collections.emptyList()).when(fileService).getExistingSourceFiles(any(File.class), any(File.class));
+        doReturn(mock(BufferedImage.class)).when(renderService).getRenderedImage(any(), any(), any());
+    }
+
+    @AfterEach
+    void tearDown() {
+        chessGeneratorService.shutdown();
     }
 
     @Test
     void shouldRenderChessVideo() throws IOException {
-        final String[] extensions = {"pgn"};
-        final Collection<File> inputFiles = List.of(new File("file"));
-        doReturn(inputFiles).when(fileService).getSourceFiles(any(File.class), eq(extensions));
-        doReturn(Collections.emptyList()).when(fileService).getExistingSourceFiles(any(File.class), any(File.class));
         final Game game = new Game("name");
         game.addMetadata("White", "White");
         game.addMetadata("Black", "Black");
@@ -57,11 +69,112 @@ class ChessGeneratorServiceTest {
         doReturn(game).when(importService).importPgn(any(File.class));
         final Position position = new Position(game);
         doReturn(position).when(positionService).generateStartPosition(game);
-        doReturn(mock(AWTSequenceEncoder.class)).when(encoderService).createMovEncoder(anyString(), anyString());
-        doReturn(mock(BufferedImage.class)).when(renderService).getRenderedImage(any(), any(), any());
+        final VideoSink videoSink = mock(VideoSink.class);
+        doReturn(videoSink).when(encoderService).createVideoSink(anyString(), anyString(), any(RenderProfile.class));
         doReturn("youTubeId").when(youTubeService).uploadVideo(any(), any());
         chessGeneratorService.renderChessVideo();
-        verify(encoderService).convertToMP4(anyString(), anyString());
+        verify(videoSink).encodeImage(any(), eq(Constants.FRAMES_AFTER_LAST_MOVE));
+        verify(encoderService).finishVideo(eq(videoSink), anyString(), anyString(), any(RenderProfile.class));
+    }
+
+    @Test
+    void shouldRenderMovesInParallel() throws IOException {
+        chessGeneratorService = createService(1, 2, 1);
+        threeMoveGame();
+        final VideoSink videoSink = mock(VideoSink.class);
+        doReturn(videoSink).when(encoderService).createVideoSink(anyString(), anyString(), any(RenderProfile.class));
+        chessGeneratorService.renderChessVideo();
+        // three animated moves, the blank first move is only held
+        verify(videoSink, times(3 * Constants.MOVE_STEPS)).encodeImage(any());
+        verify(videoSink, times(4)).encodeImage(any(), eq(Constants.FRAMES_BETWEEN_MOVES));
+        verify(videoSink).encodeImage(any(), eq(Constants.FRAMES_AFTER_LAST_MOVE));
+    }
+
+    @Test
+    void shouldRenderSegmentsInParallel() throws IOException {
+        chessGeneratorService = createService(1, 1, 2);
+        threeMoveGame();
+        final VideoSink firstSegment = mock(VideoSink.class);
+        final VideoSink secondSegment = mock(VideoSink.class);
+        doReturn(firstSegment).when(encoderService).createSegmentSink(anyString(), anyString(), eq(0), any(RenderProfile.class));
+        doReturn(secondSegment).when(encoderService).createSegmentSink(anyString(), anyString(), eq(1), any(RenderProfile.class));
+        chessGeneratorService.renderChessVideo();
+        // the blank first move and e4 in the first segment, e5 and Nf3 and the final screen in the second one
+        verify(firstSegment, times(Constants.MOVE_STEPS)).encodeImage(any());
+        verify(firstSegment, times(2)).encodeImage(any(), eq(Constants.FRAMES_BETWEEN_MOVES));
+        verify(firstSegment, never()).encodeImage(any(), eq(Constants.FRAMES_AFTER_LAST_MOVE));
+        verify(secondSegment, times(2 * Constants.MOVE_STEPS)).encodeImage(any());
+        verify(secondSegment, times(2)).encodeImage(any(), eq(Constants.FRAMES_BETWEEN_MOVES));
+        verify(secondSegment).encodeImage(any(), eq(Constants.FRAMES_AFTER_LAST_MOVE));
+        verify(encoderService).finishSegments(eq(List.of(firstSegment, secondSegment)), anyString(), anyString(), any(RenderProfile.class));
+    }
+
+    @Test
+    void shouldAbortAllSegmentsWhenOneFails() throws IOException {
+        chessGeneratorService = createService(1, 1, 2);
+        threeMoveGame();
+        final VideoSink firstSegment = mock(VideoSink.class);
+        final VideoSink secondSegment = mock(VideoSink.class);
+        doThrow(new IOException("broken pipe")).when(secondSegment).encodeImage(any());
+        doReturn(firstSegment).when(encoderService).createSegmentSink(anyString(), anyString(), eq(0), any(RenderProfile.class));
+        doReturn(secondSegment).when(encoderService).createSegmentSink(anyString(), anyString(), eq(1), any(RenderProfile.class));
+        chessGeneratorService.renderChessVideo();
+        verify(encoderService).abortSegments(eq(List.of(firstSegment, secondSegment)), anyString(), anyString());
+        verify(encoderService, never()).finishSegments(any(), anyString(), anyString(), any(RenderProfile.class));
+        verify(fileService, never()).moveFileToFolder(any(File.class), any(File.class));
+    }
+
+    @Test
+    void shouldRenderChessVideosInParallel() throws IOException {
+        chessGeneratorService = createService(2, 1, 1);
+        threeSourceFiles();
+        final Game game1 = new Game("name1");
+        final Game game2 = new Game("name2");
+        final Game game3 = new Game("name3");
+        doReturn(game1, game2, game3).when(importService).importPgn(any(File.class));
+        doReturn(new Position(game1)).when(positionService).generateStartPosition(game1);
+        doReturn(new Position(game2)).when(positionService).generateStartPosition(game2);
+        doReturn(new Position(game3)).when(positionService).generateStartPosition(game3);
+        doReturn(mock(VideoSink.class)).when(encoderService).createVideoSink(anyString(), anyString(), any(RenderProfile.class));
+        chessGeneratorService.renderChessVideo();
+        verify(encoderService, times(3)).finishVideo(any(VideoSink.class), anyString(), anyString(), any(RenderProfile.class));
+        verify(fileService, times(3)).moveFileToFolder(any(File.class), any(File.class));
+    }
+
+    @Test
+    void shouldKeepRenderingWhenGameFailsInParallel() throws IOException {
+        chessGeneratorService = createService(2, 1, 1);
+        threeSourceFiles();
+        final Game game1 = new Game("name1");
+        final Game game3 = new Game("name3");
+        doReturn(game1).doThrow(new IllegalStateException("broken game")).doReturn(game3).when(importService).importPgn(any(File.class));
+        doReturn(new Position(game1)).when(positionService).generateStartPosition(game1);
+        doReturn(new Position(game3)).when(positionService).generateStartPosition(game3);
+        doReturn(mock(VideoSink.class)).when(encoderService).createVideoSink(anyString(), anyString(), any(RenderProfile.class));
+        chessGeneratorService.renderChessVideo();
+        verify(encoderService, times(2)).finishVideo(any(VideoSink.class), anyString(), anyString(), any(RenderProfile.class));
+        verify(fileService, times(2)).moveFileToFolder(any(File.class), any(File.class));
+    }
+
+    private ChessGeneratorService createService(final int parallelism, final int frameParallelism, final int segments) {
+        return new ChessGeneratorService(renderService, positionService, importService, youTubeService, encoderService, fileService,
+                "source", "target", false, true, parallelism, frameParallelism, segments, "linear", 0, "social");
+    }
+
+    private void threeSourceFiles() {
+        final String[] extensions = {"pgn"};
+        doReturn(List.of(new File("file1"), new File("file2"), new File("file3"))).when(fileService).getSourceFiles(any(File.class), eq(extensions));
+    }
+
+    private Game threeMoveGame() throws IOException {
+        // e4 e5 Nf3, imported from the source file and played from the real start position
+        final Game game = new Game("name");
+        game.addMove(new Move(game, 1, "e4", Color.WHITE));
+        game.addMove(new Move(game, 1, "e5", Color.BLACK));
+        game.addMove(new Move(game, 2, "Nf3", Color.WHITE));
+        doReturn(game).when(importService).importPgn(any(File.class));
+        doReturn(new PositionService().generateStartPosition(game)).when(positionService).generateStartPosition(game);
+        return game;
     }
 
 }
@@ -1,16 +1,29 @@
 package com.brainking.tools.services;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
+import com.brainking.tools.dto.RenderProfile;
 import com.brainking.tools.services.utils.EncoderCoreService;
+import com.brainking.tools.video.FFmpegVideoSink;
+import com.brainking.tools.video.FramePool;
+import com.brainking.tools.video.PipelinedVideoSink;
+import com.brainking.tools.video.RawVideoSink;
+import com.brainking.tools.video.VideoSink;
 
 import ws.schild.jave.Encoder;
 
@@ -22,19 +35,70 @@ class EncoderServiceTest {
     @Mock
     private FileService fileService;
 
-    @InjectMocks
     private EncoderService encoderService;
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        encoderService = new EncoderService(encoderCoreService, fileService, new FramePool(0), "jcodec", 0, "medium", 23, 0);
     }
 
     @Test
     void shouldConvertToMP4() {
         doReturn(mock(Encoder.class)).when(encoderCoreService).createMP4Encoder();
-        final String result = encoderService.convertToMP4("targetFolder", "videoName");
+        final String result = encoderService.convertToMP4("targetFolder", "videoName", RenderProfile.SOCIAL);
         assertEquals("targetFolder/videoName.mp4", result, "The converted video path should match the expected format.");
     }
 
+    @Test
+    void shouldConvertMovVideoWhenFinished() throws IOException {
+        doReturn(mock(Encoder.class)).when(encoderCoreService).createMP4Encoder();
+        final VideoSink videoSink = mock(VideoSink.class);
+        final String result = encoderService.finishVideo(videoSink, "targetFolder", "videoName", RenderProfile.SOCIAL);
+        verify(videoSink).finish();
+        verify(encoderCoreService).createMP4Encoder();
+        assertEquals("targetFolder/videoName.mp4", result, "The converted video path should match the expected format.");
+    }
+
+    @Test
+    void shouldNotConvertMP4VideoWhenFinished() throws IOException {
+        final VideoSink videoSink = mock(VideoSink.class);
+        doReturn(true).when(videoSink).isMP4();
+        final String result = encoderService.finishVideo(videoSink, "targetFolder", "videoName", RenderProfile.SOCIAL);
+        verify(encoderCoreService, never()).createMP4Encoder();
+        assertEquals("targetFolder/videoName.mp4", result, "The video path should match the expected format.");
+    }
+
+    @Test
+    void shouldCreateFFmpegVideoSink() throws IOException {
+        final EncoderService ffmpegEncoderService = new EncoderService(encoderCoreService, fileService, new FramePool(0), "ffmpeg", 0, "medium", 23, 0);
+        final Process process = mock(Process.class);
+        doReturn(new ByteArrayOutputStream()).when(process).getOutputStream();
+        doReturn(process).when(encoderCoreService).startFFmpegProcess(anyList());
+        final VideoSink videoSink = ffmpegEncoderService.createVideoSink("targetFolder", "videoName", RenderProfile.SOCIAL);
+        assertInstanceOf(FFmpegVideoSink.class, videoSink, "The FFmpeg encoder should create an FFmpeg video sink.");
+    }
+
+    @Test
+    void shouldCreatePipelinedVideoSink() throws IOException {
+        final EncoderService pipelinedEncoderService = new EncoderService(encoderCoreService, fileService, new FramePool(0), "ffmpeg", 4, "medium", 23, 0);
+        final Process process = mock(Process.class);
+        doReturn(new ByteArrayOutputStream()).when(process).getOutputStream();
+        doReturn(process).when(encoderCoreService).startFFmpegProcess(anyList());
+        final VideoSink videoSink = pipelinedEncoderService.createVideoSink("targetFolder", "videoName", RenderProfile.SOCIAL);
+        assertInstanceOf(PipelinedVideoSink.class, videoSink, "A frame buffer should create a pipelined video sink.");
+        videoSink.finish();
+    }
+
+    @Test
+    void shouldDumpRawFramesWithoutConversion() throws IOException {
+        final EncoderService rawEncoderService = new EncoderService(encoderCoreService, fileService, new FramePool(0), "raw", 0, "medium", 23, 0);
+        doReturn(new ByteArrayOutputStream()).when(encoderCoreService).createRawOutput(anyString(), anyString());
+        final VideoSink videoSink = rawEncoderService.createVideoSink("targetFolder", "videoName", RenderProfile.SOCIAL);
+        assertInstanceOf(RawVideoSink.class, videoSink, "The raw encoder should create a raw video sink.");
+        final String result = rawEncoderService.finishVideo(videoSink, "targetFolder", "videoName", RenderProfile.SOCIAL);
+        verify(encoderCoreService, never()).createMP4Encoder();
+        assertEquals("targetFolder/videoName.bgr", result, "The raw frame dump should not be converted.");
+    }
+
 }
@@ -1,16 +1,27 @@
 package com.brainking.tools.services;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import com.brainking.tools.dto.Animation;
+import com.brainking.tools.dto.Bitboard;
 import com.brainking.tools.dto.Color;
+import com.brainking.tools.dto.Easing;
 import com.brainking.tools.dto.Game;
+import com.brainking.tools.dto.Move;
 import com.brainking.tools.dto.Piece;
 import com.brainking.tools.dto.Position;
 import com.brainking.tools.dto.Type;
+import com.brainking.tools.dto.Variant;
+import com.brainking.tools.utils.Constants;
 
 class PositionServiceTest {
 
@@ -52,4 +63,184 @@ class PositionServiceTest {
         assertEquals(640, piece.getY(), "The piece's Y-coordinate is 640.");
     }
 
+    @Test
+    void shouldPlayMoveOnSnapshotOnly() {
+        final Game game = new Game("name");
+        final Position position = positionService.generateStartPosition(game);
+        final Position snapshot = position.snapshot();
+        playMove(snapshot, new Move(game, 1, "e4", Color.WHITE));
+        assertNull(snapshot.getPieceGrid()[1][4], "The pawn has left its square in the snapshot.");
+        assertEquals(Type.PAWN, snapshot.getPieceGrid()[3][4].getType(), "The pawn has arrived in the snapshot.");
+        assertEquals(Type.PAWN, position.getPieceGrid()[1][4].getType(), "The original position still has the pawn.");
+        assertNull(position.getPieceGrid()[3][4], "The original position is not changed.");
+        assertNotSame(position.getPieceGrid()[0][0], snapshot.getPieceGrid()[0][0], "The snapshot has its own pieces.");
+    }
+
+    @Test
+    void shouldKeepBoardHashWhenOnlyCapturedPiecesDiffer() {
+        final Game game = new Game("name");
+        final Position position = positionService.generateStartPosition(game);
+        final Position snapshot = position.snapshot();
+        snapshot.capturePiece(new Piece(Color.BLACK, Type.PAWN));
+        assertEquals(position.getBoardHash(), snapshot.getBoardHash(), "The captured pieces are not on the board.");
+        assertNotEquals(position.getHash(), snapshot.getHash(), "The captured pieces are in the frame.");
+    }
+
+    @Test
+    void shouldHashPromotedPieceLikeFreshPosition() {
+        final Game game = new Game("name");
+        final Position position = new Position(game);
+        position.addPiece(new Piece(Color.WHITE, Type.KING), 0, 0);
+        position.addPiece(new Piece(Color.BLACK, Type.KING), 7, 7);
+        position.addPiece(new Piece(Color.WHITE, Type.PAWN), 6, 4);
+        playMove(position, new Move(game, 1, "e8=Q", Color.WHITE));
+        // the same board reached by a queen move, so both positions end with a finished move
+        final Position fresh = new Position(game);
+        fresh.addPiece(new Piece(Color.WHITE, Type.KING), 0, 0);
+        fresh.addPiece(new Piece(Color.BLACK, Type.KING), 7, 7);
+        fresh.addPiece(new Piece(Color.WHITE, Type.QUEEN), 7, 3);
+        playMove(fresh, new Move(game, 1, "Qe8", Color.WHITE));
+        assertEquals(Type.QUEEN, position.getPieceGrid()[7][4].getType(), "The pawn has been promoted on e8.");
+        assertEquals(fresh.getBoardHash(), position.getBoardHash(), "The promoted board has the same hash as the one with the queen.");
+    }
+
+    @Test
+    void shouldStopMovingAfterLastStep() {
+        final Game game = new Game("name");
+        final Position position = positionService.generateStartPosition(game);
+        position.startMoving(new Move(game, 1, "Nf3", Color.WHITE));
+        for (int i = 0; i < Constants.MOVE_STEPS - 1; i++) {
+            position.doMoveStep();
+        }
+        assertTrue(position.isMoving(), "The knight is still moving before the last step.");
+        position.doMoveStep();
+        assertFalse(position.isMoving(), "The knight has arrived after the last step.");
+    }
+
+    @Test
+    void shouldAnimateByDistanceWithEasing() {
+        final Game game = new Game("name");
+        game.setAnimation(new Animation(Easing.EASE_IN_OUT, 8));
+        final Position position = positionService.generateStartPosition(game);
+        position.startMoving(new Move(game, 1, "Nf3", Color.WHITE));
+        final Piece knight = position.getPieceGrid()[0][6];
+        final int startY = knight.getY();
+        for (int i = 0; i < 16 - 1; i++) {
+            position.doMoveStep();
+        }
+        assertTrue(position.isMoving(), "The knight jump takes 8 steps per square.");
+        assertTrue(startY - knight.getY() > 185, "The eased knight is slower than linear only at the end.");
+        position.doMoveStep();
+        assertFalse(position.isMoving(), "The knight has arrived after 16 steps.");
+        assertEquals(640, knight.getY(), "The knight has landed on f3.");
+    }
+
+    @Test
+    void shouldResolveEasingByName() {
+        assertEquals(Easing.EASE_IN_OUT, Easing.fromName(" ease-in-out "), "The easing is resolved regardless of the case.");
+        assertEquals(Easing.LINEAR, Easing.fromName("ease-inn"), "An unknown easing falls back to the linear one.");
+    }
+
+    @Test
+    void shouldKeepBitboardInSyncOnGrandBoard() {
+        final Game game = new Game("name");
+        game.addMetadata("Variant", Constants.GRAND);
+        game.setDimensionFromVariant();
+        final Position position = positionService.generateStartPosition(game);
+        final Bitboard bitboard = position.getBitboard();
+        final Piece[][] pieceGrid = position.getPieceGrid();
+        for (int row = 0; row < game.getHeight(); row++) {
+            for (int column = 0; column < game.getWidth(); column++) {
+                final Piece piece = pieceGrid[row][column];
+                if (piece == null) {
+                    assertFalse(bitboard.isOccupied(row, column), "An empty square is empty in the bitboard.");
+                } else {
+                    assertTrue(bitboard.hasPiece(row, column, piece.getColor(), piece.getType()), "The bitboard has the same piece.");
+                }
+            }
+        }
+        assertEquals(20, bitboard.count(Color.BLACK), "Black pieces on the upper rows are counted in the high bits.");
+        assertTrue(bitboard.contains(Color.BLACK, Type.KING), "The black king is found.");
+    }
+
+    @Test
+    void shouldFindRookAcrossWholeGrandBoard() {
+        final Game game = new Game("name");
+        game.addMetadata("Variant", Constants.GRAND);
+        game.setDimensionFromVariant();
+        final Position position = new Position(game);
+        position.addPiece(new Piece(Color.WHITE, Type.ROOK), 0, 0);
+        playMove(position, new Move(game, 1, "Ra10", Color.WHITE));
+        assertNull(position.getPieceGrid()[0][0], "The rook has left its square.");
+        assertEquals(Type.ROOK, position.getPieceGrid()[9][0].getType(), "The rook has moved nine squares.");
+    }
+
+    @Test
+    void shouldUpdateDarkVisibilityIncrementally() {
+        final Game game = new Game("name");
+        game.addMetadata("Variant", Constants.DARK);
+        final Position position = positionService.generateStartPosition(game);
+        final String[] pgnCodes = {"e4", "d5", "exd5", "Qxd5", "Bc4"};
+        for (int i = 0; i < pgnCodes.length; i++) {
+            playMove(position, new Move(game, i / 2 + 1, pgnCodes[i], i % 2 == 0 ? Color.WHITE : Color.BLACK));
+        }
+        final Position recalculated = position.snapshot();
+        recalculated.resetVisibleGrid();
+        for (int row = 0; row < game.getHeight(); row++) {
+            for (int column = 0; column < game.getWidth(); column++) {
+                assertEquals(recalculated.isVisible(row, column), position.isVisible(row, column),
+                        "The incremental visibility matches the full recalculation.");
+            }
+        }
+        assertTrue(position.isVisible(4, 3), "The white bishop sees the black queen.");
+        assertFalse(position.isVisible(6, 0), "The black pawn on a7 is hidden.");
+    }
+
+    @Test
+    void shouldPlayMoveWithScreenshotId() {
+        final Game game = new Game("name");
+        final Position position = positionService.generateStartPosition(game);
+        final Move move = new Move(game, 1, "Nf3+[x1]", Color.WHITE);
+        assertEquals("x1", move.getScreenshotId(), "The screenshot ID is read.");
+        assertEquals("Nf3+", move.getPgnCode(), "The screenshot ID is not a part of the move.");
+        assertTrue(move.isCheck(), "The check sign is found before the screenshot ID.");
+        playMove(position, move);
+        assertEquals(Type.KNIGHT, position.getPieceGrid()[2][5].getType(), "The knight has moved to f3.");
+    }
+
+    @Test
+    void shouldRemapEmbassyPiecesFromFEN() {
+        final Game game = new Game("name");
+        game.addMetadata("Variant", Constants.EMBASSY);
+        game.addMetadata("FEN", "rnbqkmcbnr/pppppppppp/10/10/10/10/PPPPPPPPPP/RNBQKMCBNR w KQkq - 0 1");
+        game.setDimensionFromVariant();
+        final Position position = positionService.generateStartPosition(game);
+        assertEquals(Type.CHANCELLOR, position.getPieceGrid()[0][5].getType(), "M is the chancellor in Embassy.");
+        assertEquals(Type.ARCHBISHOP, position.getPieceGrid()[7][6].getType(), "C is the archbishop in Embassy.");
+        assertEquals(Type.PAWN, position.getPieceGrid()[6][9].getType(), "The pawns fill the 10 columns.");
+    }
+
+    @Test
+    void shouldCastleLongToTheRightOnEmbassyBoard() {
+        final Game game = new Game("name");
+        game.addMetadata("Variant", "embassy");
+        game.setDimensionFromVariant();
+        assertEquals(Variant.EMBASSY, game.getVariant(), "The variant is resolved regardless of the case.");
+        final Position position = new Position(game);
+        position.addPiece(new Piece(Color.WHITE, Type.KING), 0, 4);
+        position.addPiece(new Piece(Color.WHITE, Type.ROOK), 0, 9);
+        playMove(position, new Move(game, 1, "O-O-O", Color.WHITE));
+        assertEquals(Type.KING, position.getPieceGrid()[0][7].getType(), "The king has moved to h1.");
+        assertEquals(Type.ROOK, position.getPieceGrid()[0][6].getType(), "The rook has jumped over the king to g1.");
+        assertNull(position.getPieceGrid()[0][9], "The corner is empty.");
+    }
+
+    private static void playMove(final Position position, final Move move) {
+        position.startMoving(move);
+        while (position.isMoving()) {
+            position.doMoveStep();
+        }
+        position.stopMoving();
+    }
+
 }
@@ -1,29 +1,47 @@
 package com.brainking.tools.services;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.mockito.Mockito.doReturn;
 
+import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
+import com.brainking.tools.dto.Color;
+import com.brainking.tools.dto.Game;
+import com.brainking.tools.dto.Move;
+import com.brainking.tools.dto.Piece;
+import com.brainking.tools.dto.Position;
+import com.brainking.tools.dto.RenderProfile;
+import com.brainking.tools.dto.Type;
+import com.brainking.tools.utils.Constants;
+import com.brainking.tools.video.FramePool;
+
 class RenderServiceTest {
 
     @Mock
     private SvgService svgService;
 
-    @InjectMocks
     private RenderService renderService;
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        renderService = new RenderService(svgService, new FramePool(4), 32);
     }
 
     @Test
@@ -39,4 +57,100 @@ class RenderServiceTest {
         assertNotNull(result.get("K"), "The map should contain BufferedImage.");
     }
 
+    @Test
+    void shouldReuseLayersForUnchangedPosition() {
+        final Game game = new Game("name");
+        final Position position = new PositionService().generateStartPosition(game);
+        final BufferedImage first = renderService.getRenderedImage(game, position, List.of());
+        final BufferedImage second = renderService.getRenderedImage(game, position, List.of());
+        assertNotSame(first, second, "Every frame should be a separate image.");
+        assertArrayEquals(getData(first), getData(second), "Frames of an unchanged position should be identical.");
+    }
+
+    @Test
+    void shouldRenderPreviewProfileAtHalfSize() {
+        final Game game = new Game("name");
+        game.setProfile(RenderProfile.PREVIEW);
+        final Position position = new PositionService().generateStartPosition(game);
+        final BufferedImage image = renderService.getRenderedImage(game, position, List.of());
+        assertEquals(540, image.getWidth(), "A preview frame should be half as wide.");
+        assertEquals(540, image.getHeight(), "A preview frame should be half as high.");
+        assertEquals(50, Constants.getSquareSize(game), "The board should be scaled with the frame.");
+        assertEquals(Constants.LIGHT_SQUARE.getRGB(), image.getRGB(Constants.getBoardX(game) + 1, Constants.getBoardY(game) + 1),
+                "The board should stay centered in the smaller frame.");
+    }
+
+    @Test
+    void shouldRenderMovingPieces() {
+        final Game game = new Game("name");
+        final BufferedImage pawn = new BufferedImage(10, 10, BufferedImage.TYPE_INT_RGB);
+        game.addPieceMaps(Map.of("p", pawn), Map.of("p", pawn));
+        final Position position = new PositionService().generateStartPosition(game);
+        final Move move = new Move(game, 1, "e4", Color.WHITE);
+        final List<Move> processedMoves = List.of(move);
+        position.startMoving(move);
+        position.doMoveStep();
+        position.doMoveStep();
+        final BufferedImage first = renderService.getRenderedImage(game, position, processedMoves);
+        position.doMoveStep();
+        final BufferedImage second = renderService.getRenderedImage(game, position, processedMoves);
+        assertFalse(Arrays.equals(getData(first), getData(second)), "The moving piece should change the frame.");
+    }
+
+    @Test
+    void shouldRenderCapturedPieceFromPrescaledSprite() {
+        final Game game = new Game("name");
+        final BufferedImage pawn = new BufferedImage(10, 10, BufferedImage.TYPE_INT_ARGB);
+        final Graphics2D graphics2d = pawn.createGraphics();
+        graphics2d.setColor(java.awt.Color.RED);
+        graphics2d.fillRect(0, 0, 10, 10);
+        graphics2d.dispose();
+        game.addPieceMaps(Map.of("p", pawn), Map.of("p", pawn));
+        final Position position = new PositionService().generateStartPosition(game);
+        position.capturePiece(new Piece(Color.WHITE, Type.PAWN));
+        final Piece capturedPiece = position.getWhiteCapturedPieces().get(0);
+        final int size = Constants.getCapturedPieceSize(game);
+        final BufferedImage image = renderService.getRenderedImage(game, position, List.of());
+        assertEquals(java.awt.Color.RED.getRGB(), image.getRGB(capturedPiece.getX(), capturedPiece.getY()), "The captured piece should be drawn.");
+        assertEquals(java.awt.Color.RED.getRGB(), image.getRGB(capturedPiece.getX() + size - 1, capturedPiece.getY() + size - 1),
+                "The captured piece should be scaled to its size.");
+        assertNotEquals(java.awt.Color.RED.getRGB(), image.getRGB(capturedPiece.getX() + size, capturedPiece.getY() + size),
+                "The captured piece should not be drawn beyond its size.");
+    }
+
+    @Test
+    void shouldReuseBoardRasterForRepeatedPosition() {
+        final Game game = new Game("name");
+        final BufferedImage knight = new BufferedImage(10, 10, BufferedImage.TYPE_INT_RGB);
+        game.addPieceMaps(Map.of("N", knight), Map.of("N", knight));
+        final Position position = new PositionService().generateStartPosition(game);
+        final String[] pgnCodes = {"Nf3", "Nf6", "Ng1", "Ng8", "Nf3"};
+        final List<Move> processedMoves = new ArrayList<>();
+        final List<BufferedImage> frames = new ArrayList<>();
+        for (int i = 0; i < pgnCodes.length; i++) {
+            final Move move = new Move(game, i / 2 + 1, pgnCodes[i], i % 2 == 0 ? Color.WHITE : Color.BLACK);
+            processedMoves.add(move);
+            position.startMoving(move);
+            while (position.isMoving()) {
+                position.doMoveStep();
+            }
+            position.stopMoving();
+            frames.add(renderService.getRenderedImage(game, position, List.copyOf(processedMoves)));
+        }
+        final Position replayed = new PositionService().generateStartPosition(game);
+        final Move move = new Move(game, 1, "Nf3", Color.WHITE);
+        replayed.startMoving(move);
+        while (replayed.isMoving()) {
+            replayed.doMoveStep();
+        }
+        replayed.stopMoving();
+        assertEquals(position.getHash(), replayed.getHash(), "The repeated position has the same hash.");
+        final BufferedImage fresh = new RenderService(svgService, new FramePool(0), 0).getRenderedImage(game, position, processedMoves);
+        assertArrayEquals(getData(fresh), getData(frames.get(4)), "The reused board is the same as a rendered one.");
+    }
+
+    private byte[] getData(final BufferedImage image) {
+        return ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+    }
+
 }
@@ -1,12 +1,25 @@
 package com.brainking.tools.services;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.awt.Color;
+import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Map;
+import java.util.stream.Stream;
 
+import javax.imageio.ImageIO;
+
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 class SvgServiceTest {
 
@@ -14,7 +27,12 @@ class SvgServiceTest {
 
     @BeforeEach
     void setUp() {
-        svgService = new SvgService();
+        svgService = new SvgService(64, "", 4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        svgService.shutdown();
     }
 
     @Test
@@ -25,6 +43,13 @@ class SvgServiceTest {
         assertEquals("/images/chess/WhiteKing.svg", map.get("K"), "The entries should have the correct prefix.");
     }
 
+    @Test
+    void shouldReturnNeutralImageResourceMap() {
+        final Map<String, String> map = svgService.getNeutralImageResourceMap();
+        assertEquals(2, map.size(), "Map should contain 2 entries.");
+        assertEquals("/images/neutral/IceCube.svg", map.get("i"), "The ice cube should use the neutral folder.");
+    }
+
     @Test
     void shouldReturnBufferedImageMap() {
         final Map<String, String> map = Map.of("K", "/WhiteKing.svg");
@@ -32,4 +57,45 @@ class SvgServiceTest {
         assertEquals(1, imageMap.size(), "Map should contain 1 entry.");
     }
 
+    @Test
+    void shouldReuseCachedSprites() {
+        final Map<String, BufferedImage> first = svgService.getBufferedImageMap(svgService.getImageResourceMap("White"), 10);
+        final Map<String, BufferedImage> second = svgService.getBufferedImageMap(svgService.getImageResourceMap("White"), 10);
+        assertSame(first.get("K"), second.get("K"), "The sprite should be transcoded only once.");
+        assertNotSame(first.get("K"), svgService.getBufferedImageMap(svgService.getImageResourceMap("Black"), 10).get("K"),
+                "Each colour should have its own sprite.");
+    }
+
+    @Test
+    void shouldTranscodeOnCallingThreadWithoutPool() {
+        final SvgService singleThreadSvgService = new SvgService(64, "", 1);
+        final Map<String, String> imageResourceMap = singleThreadSvgService.getImageResourceMap("White");
+        assertEquals(imageResourceMap.keySet(), singleThreadSvgService.getBufferedImageMap(imageResourceMap, 10).keySet(),
+                "Every sprite should be loaded without the transcoding pool.");
+        singleThreadSvgService.shutdown();
+    }
+
+    @Test
+    void shouldStoreSpritesOnDisk(@TempDir final Path spriteFolder) throws IOException {
+        // a sprite stored under the name used before the checksum was added must not be read
+        final BufferedImage outdated = new BufferedImage(10, 10, BufferedImage.TYPE_INT_ARGB);
+        final Graphics2D graphics2d = outdated.createGraphics();
+        graphics2d.setColor(Color.RED);
+        graphics2d.fillRect(0, 0, 10, 10);
+        graphics2d.dispose();
+        ImageIO.write(outdated, "png", spriteFolder.resolve("WhiteKing-10.png").toFile());
+        final SvgService cachingSvgService = new SvgService(64, spriteFolder.toString(), 4);
+        final BufferedImage king = cachingSvgService.getBufferedImageMap(Map.of("K", "/images/chess/WhiteKing.svg"), 10).get("K");
+        try (Stream<Path> files = Files.list(spriteFolder)) {
+            assertTrue(files.anyMatch(file -> file.getFileName().toString().matches("WhiteKing-10-[0-9a-f]+\\.png")),
+                    "The sprite should be stored as PNG named with the checksum of its sources.");
+        }
+        final BufferedImage cachedKing = new SvgService(64, spriteFolder.toString(), 4)
+                .getBufferedImageMap(Map.of("K", "/images/chess/WhiteKing.svg"), 10).get("K");
+        final BufferedImage transcodedKing = svgService.getBufferedImageMap(Map.of("K", "/images/chess/WhiteKing.svg"), 10).get("K");
+        assertEquals(king.getType(), cachedKing.getType(), "The cached sprite should have the same type.");
+        assertEquals(king.getRGB(5, 5), cachedKing.getRGB(5, 5), "The cached sprite should have the same pixels.");
+        assertEquals(transcodedKing.getRGB(5, 5), cachedKing.getRGB(5, 5), "The outdated sprite should not be used.");
+    }
+
 }
@@ -0,0 +1,42 @@
+package com.brainking.tools.video;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class FFmpegVideoSinkTest {
+
+    private Process process;
+    private ByteArrayOutputStream outputStream;
+    private FFmpegVideoSink videoSink;
+
+    @BeforeEach
+    void setUp() {
+        process = mock(Process.class);
+        outputStream = new ByteArrayOutputStream();
+        doReturn(outputStream).when(process).getOutputStream();
+        videoSink = new FFmpegVideoSink(process, 10, 10);
+    }
+
+    @Test
+    void shouldPipeRawFrames() throws IOException {
+        videoSink.encodeImage(new BufferedImage(10, 10, BufferedImage.TYPE_3BYTE_BGR));
+        videoSink.encodeImage(new BufferedImage(10, 10, BufferedImage.TYPE_INT_ARGB), 3);
+        assertEquals(4 * 10 * 10 * 3, outputStream.size(), "Every frame should be piped as 10x10 bgr24 pixels.");
+    }
+
+    @Test
+    void shouldFailOnFFmpegError() throws InterruptedException {
+        doReturn(1).when(process).waitFor();
+        assertThrows(IOException.class, () -> videoSink.finish(), "A failed FFmpeg process should be reported.");
+    }
+
+}
@@ -0,0 +1,44 @@
+package com.brainking.tools.video;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.awt.image.BufferedImage;
+
+import org.junit.jupiter.api.Test;
+
+class FramePoolTest {
+
+    @Test
+    void shouldReuseReleasedImage() {
+        final FramePool framePool = new FramePool(2);
+        final BufferedImage image = framePool.lease(10, 10);
+        framePool.release(image);
+        assertSame(image, framePool.lease(10, 10), "The released image should be leased again.");
+        assertNotSame(image, framePool.lease(10, 10), "A leased image should not be shared.");
+        assertEquals(2, framePool.getAllocatedImages(), "Only the images in use at the same time should be allocated.");
+    }
+
+    @Test
+    void shouldKeepImagesOfDifferentSizesApart() {
+        final FramePool framePool = new FramePool(2);
+        final BufferedImage image = framePool.lease(10, 10);
+        framePool.release(image);
+        final BufferedImage screenshot = framePool.lease(10, 5);
+        assertEquals(5, screenshot.getHeight(), "The image should have the requested size.");
+        assertEquals(BufferedImage.TYPE_3BYTE_BGR, screenshot.getType(), "The image should be ready for the encoder.");
+    }
+
+    @Test
+    void shouldDropImagesWhenFull() {
+        final FramePool framePool = new FramePool(1);
+        final BufferedImage first = framePool.lease(10, 10);
+        final BufferedImage second = framePool.lease(10, 10);
+        framePool.release(first);
+        framePool.release(second);
+        assertSame(first, framePool.lease(10, 10), "The first released image should be kept.");
+        assertNotSame(second, framePool.lease(10, 10), "The image over the limit should be dropped.");
+    }
+
+}
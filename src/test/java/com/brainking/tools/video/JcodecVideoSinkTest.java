@@ -0,0 +1,57 @@
+package com.brainking.tools.video;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+
+import org.jcodec.api.awt.AWTSequenceEncoder;
+import org.jcodec.common.model.Picture;
+import org.jcodec.scale.AWTUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+class JcodecVideoSinkTest {
+
+    private AWTSequenceEncoder encoder;
+    private JcodecVideoSink videoSink;
+
+    @BeforeEach
+    void setUp() {
+        encoder = mock(AWTSequenceEncoder.class);
+        videoSink = new JcodecVideoSink(encoder);
+    }
+
+    @Test
+    void shouldConvertHoldFrameOnlyOnce() throws IOException {
+        final BufferedImage image = new BufferedImage(10, 10, BufferedImage.TYPE_3BYTE_BGR);
+        final ArgumentCaptor<Picture> pictures = ArgumentCaptor.forClass(Picture.class);
+        videoSink.encodeImage(image, 15);
+        verify(encoder, times(15)).encodeNativeFrame(pictures.capture());
+        assertEquals(1, pictures.getAllValues().stream().distinct().count());
+    }
+
+    @Test
+    void shouldConvertBgrFrameLikeAwt() throws IOException {
+        final BufferedImage image = new BufferedImage(4, 3, BufferedImage.TYPE_3BYTE_BGR);
+        image.setRGB(0, 0, 0xFF0000);
+        image.setRGB(1, 1, 0x00FF80);
+        image.setRGB(3, 2, 0x1234FE);
+        final ArgumentCaptor<Picture> picture = ArgumentCaptor.forClass(Picture.class);
+        videoSink.encodeImage(image);
+        verify(encoder).encodeNativeFrame(picture.capture());
+        assertArrayEquals(AWTUtil.fromBufferedImageRGB(image).getPlaneData(0), picture.getValue().getPlaneData(0));
+    }
+
+    @Test
+    void shouldFinishEncoder() throws IOException {
+        videoSink.finish();
+        verify(encoder).finish();
+    }
+
+}
@@ -0,0 +1,94 @@
+package com.brainking.tools.video;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class PipelinedVideoSinkTest {
+
+    private VideoSink videoSink;
+
+    @BeforeEach
+    void setUp() {
+        videoSink = mock(VideoSink.class);
+    }
+
+    @Test
+    void shouldEncodeFramesOnEncoderThread() throws IOException {
+        final PipelinedVideoSink pipelinedVideoSink = new PipelinedVideoSink(videoSink, 2, new FramePool(4));
+        final BufferedImage image = new BufferedImage(10, 10, BufferedImage.TYPE_3BYTE_BGR);
+        final BufferedImage holdImage = new BufferedImage(10, 10, BufferedImage.TYPE_3BYTE_BGR);
+        for (int i = 0; i < 10; i++) {
+            pipelinedVideoSink.encodeImage(image);
+        }
+        pipelinedVideoSink.encodeImage(holdImage, 15);
+        pipelinedVideoSink.finish();
+        verify(videoSink, times(10)).encodeImage(image);
+        verify(videoSink).encodeImage(holdImage, 15);
+        verify(videoSink).finish();
+        assertEquals(25, pipelinedVideoSink.getEncodedFrames(), "All frames including the held ones should be encoded.");
+        assertTrue(pipelinedVideoSink.getEncodeNanos() >= 0, "The encode stage time should be measured.");
+    }
+
+    @Test
+    void shouldReportEncoderFailure() throws IOException {
+        final BufferedImage image = new BufferedImage(10, 10, BufferedImage.TYPE_3BYTE_BGR);
+        doThrow(new IOException("broken pipe")).when(videoSink).encodeImage(any());
+        final PipelinedVideoSink pipelinedVideoSink = new PipelinedVideoSink(videoSink, 2, new FramePool(4));
+        pipelinedVideoSink.encodeImage(image);
+        assertThrows(IOException.class, pipelinedVideoSink::finish, "The encoder failure should be reported when finishing.");
+        verify(videoSink, never()).finish();
+    }
+
+    @Test
+    void shouldReportUncheckedEncoderFailure() throws IOException {
+        final BufferedImage image = new BufferedImage(10, 10, BufferedImage.TYPE_3BYTE_BGR);
+        doThrow(new IllegalStateException("broken encoder")).when(videoSink).encodeImage(any());
+        final PipelinedVideoSink pipelinedVideoSink = new PipelinedVideoSink(videoSink, 2, new FramePool(4));
+        // more frames than the encoder and the buffer can hold, the renderer must not wait for them forever
+        assertThrows(IOException.class, () -> {
+            for (int i = 0; i < 10; i++) {
+                pipelinedVideoSink.encodeImage(image);
+            }
+        }, "The unchecked encoder failure should be reported to the renderer.");
+        assertThrows(IOException.class, pipelinedVideoSink::finish, "The encoder failure should be reported when finishing.");
+        verify(videoSink, never()).finish();
+    }
+
+    @Test
+    void shouldReleaseQueuedFramesAfterEncoderFailure() throws IOException {
+        final FramePool framePool = new FramePool(4);
+        final BufferedImage image = new BufferedImage(10, 10, BufferedImage.TYPE_3BYTE_BGR);
+        final BufferedImage queuedImage = new BufferedImage(10, 10, BufferedImage.TYPE_3BYTE_BGR);
+        final BufferedImage otherQueuedImage = new BufferedImage(10, 10, BufferedImage.TYPE_3BYTE_BGR);
+        doThrow(new IOException("broken pipe")).when(videoSink).encodeImage(any());
+        final PipelinedVideoSink pipelinedVideoSink = new PipelinedVideoSink(videoSink, 2, framePool);
+        pipelinedVideoSink.encodeImage(image);
+        for (final BufferedImage queued : new BufferedImage[] {queuedImage, otherQueuedImage}) {
+            try {
+                pipelinedVideoSink.encodeImage(queued);
+            } catch (IOException ex) {
+                // the failure may be noticed before the frame is queued, it is released either way
+            }
+        }
+        assertThrows(IOException.class, pipelinedVideoSink::finish, "The encoder failure should be reported when finishing.");
+        final BufferedImage leased = framePool.lease(10, 10);
+        final BufferedImage otherLeased = framePool.lease(10, 10);
+        assertTrue(leased == queuedImage || leased == otherQueuedImage, "A frame that was not encoded should be back in the pool.");
+        assertTrue(otherLeased == queuedImage || otherLeased == otherQueuedImage, "A frame that was not encoded should be back in the pool.");
+        assertTrue(leased != otherLeased, "Both frames that were not encoded should be back in the pool.");
+    }
+
+}